@@ -0,0 +1,447 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.FlowNetwork.INFINITE_CAPACITY;
+import static edu.kit.nildumu.FlowNetwork.inVertex;
+import static edu.kit.nildumu.FlowNetwork.outVertex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.kit.nildumu.Lattices.Bit;
+
+/**
+ * Reduces the min vertex cut problem on a bit arena before the flow network is created, without changing
+ * the value of the minimum cut:
+ * <ul>
+ *     <li>strongly connected components of infinite weight bits are condensed, they cannot be cut</li>
+ *     <li>chains are contracted: a bit with a single dependency (or a single dependent bit) is merged into
+ *     it, if the weight of the other bit is not larger, as cutting the other bit cuts at least the same
+ *     paths</li>
+ *     <li>parallel bits (bits with the same dependencies and dependent bits) are merged, the merged vertex
+ *     has the sum of their weights, as a minimal cut either contains all of them or none</li>
+ * </ul>
+ * Sources and sinks are never merged into other bits. The merged vertices are managed with a union find
+ * structure over the arena indexes, the root of each group is its representative.
+ */
+public class ArenaReduction {
+
+    private static final int MAX_ROUNDS = 8;
+
+    /**
+     * Only bits with at most this many dependencies and dependent bits are checked for parallel bits
+     */
+    private static final int MAX_PARALLEL_DEGREE = 4;
+
+    private final BitArena arena;
+
+    private final boolean[] isSource;
+    private final boolean[] isSink;
+
+    private final int[] parent;
+
+    /**
+     * Weight of every group, only valid for roots
+     */
+    private final long[] weight;
+
+    /**
+     * Members of a group whose dependencies might lie outside of the group (linked lists)
+     */
+    private final int[] outHead, outTail, outNext;
+
+    /**
+     * Members of a group whose dependent bits might lie outside of the group (linked lists)
+     */
+    private final int[] inHead, inTail, inNext;
+
+    /**
+     * Members of a group that are part of the min cut if the group is (linked lists)
+     */
+    private final int[] cutHead, cutTail, cutNext;
+
+    /**
+     * Compact vertex number of every root
+     */
+    private final int[] vertices;
+
+    private final int[] roots;
+
+    private final int[] stamps;
+    private int stamp = 0;
+
+    /**
+     * @param sources indexes of the source bits in the arena
+     * @param sinks indexes of the sink bits in the arena, their dependencies are omitted
+     * @param reduce apply the reductions? Otherwise every bit is its own vertex.
+     */
+    public ArenaReduction(BitArena arena, int[] sources, int[] sinks, boolean reduce) {
+        this.arena = arena;
+        int n = arena.size();
+        isSource = new boolean[n];
+        isSink = new boolean[n];
+        for (int source : sources) {
+            isSource[source] = true;
+        }
+        for (int sink : sinks) {
+            isSink[sink] = true;
+        }
+        parent = new int[n];
+        weight = new long[n];
+        outHead = new int[n];
+        outTail = new int[n];
+        outNext = new int[n];
+        inHead = new int[n];
+        inTail = new int[n];
+        inNext = new int[n];
+        cutHead = new int[n];
+        cutTail = new int[n];
+        cutNext = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            weight[i] = arena.hasInfiniteWeight(i) ? INFINITE_CAPACITY : 1;
+            outHead[i] = outTail[i] = inHead[i] = inTail[i] = cutHead[i] = cutTail[i] = i;
+            outNext[i] = inNext[i] = cutNext[i] = -1;
+        }
+        stamps = new int[n];
+        if (reduce) {
+            condenseInfiniteComponents();
+            boolean changed = true;
+            for (int round = 0; round < MAX_ROUNDS && changed; round++) {
+                changed = contractChains() | mergeParallelBits();
+            }
+        }
+        vertices = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            vertices[i] = find(i) == i ? size++ : -1;
+        }
+        roots = new int[size];
+        for (int i = 0; i < n; i++) {
+            if (vertices[i] != -1) {
+                roots[vertices[i]] = i;
+            }
+        }
+    }
+
+    private int find(int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private boolean isTerminal(int root) {
+        return isSource[root] || isSink[root];
+    }
+
+    /**
+     * Merges the group of the second bit into the group of the first bit
+     *
+     * @param keepOut keep the members with possibly outgoing edges of the absorbed group
+     * @param keepIn keep the members with possibly incoming edges of the absorbed group
+     * @param parallel the groups are parallel: sum the weights and cut both
+     */
+    private void merge(int keep, int absorbed, boolean keepOut, boolean keepIn, boolean parallel) {
+        keep = find(keep);
+        absorbed = find(absorbed);
+        parent[absorbed] = keep;
+        if (keepOut) {
+            outNext[outTail[keep]] = outHead[absorbed];
+            outTail[keep] = outTail[absorbed];
+        }
+        if (keepIn) {
+            inNext[inTail[keep]] = inHead[absorbed];
+            inTail[keep] = inTail[absorbed];
+        }
+        if (parallel) {
+            weight[keep] = Math.min(weight[keep] + weight[absorbed], INFINITE_CAPACITY);
+            cutNext[cutTail[keep]] = cutHead[absorbed];
+            cutTail[keep] = cutTail[absorbed];
+        }
+    }
+
+    /**
+     * Collects the distinct groups that the group depends on
+     *
+     * @param limit stop after this many groups
+     * @return number of collected groups, written to {@code result}
+     */
+    private int successors(int root, int[] result, int limit) {
+        if (isSink[root]) {
+            return 0;
+        }
+        stamp++;
+        int count = 0;
+        int[] deps = arena.deps();
+        for (int m = outHead[root]; m != -1; m = outNext[m]) {
+            if (isSink[m]) {
+                continue;
+            }
+            for (int j = arena.depStart(m); j < arena.depEnd(m); j++) {
+                int dep = find(deps[j]);
+                if (dep != root && stamps[dep] != stamp) {
+                    stamps[dep] = stamp;
+                    if (count == limit) {
+                        return count + 1;
+                    }
+                    result[count++] = dep;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collects the distinct groups that depend on the group
+     *
+     * @param limit stop after this many groups
+     * @return number of collected groups, written to {@code result}
+     */
+    private int predecessors(int root, int[] result, int limit) {
+        stamp++;
+        int count = 0;
+        int[] revDeps = arena.revDeps();
+        for (int m = inHead[root]; m != -1; m = inNext[m]) {
+            for (int j = arena.revStart(m); j < arena.revEnd(m); j++) {
+                if (isSink[revDeps[j]]) {
+                    // the dependencies of sinks are omitted
+                    continue;
+                }
+                int rev = find(revDeps[j]);
+                if (rev != root && stamps[rev] != stamp) {
+                    stamps[rev] = stamp;
+                    if (count == limit) {
+                        return count + 1;
+                    }
+                    result[count++] = rev;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Condenses the strongly connected components of infinite weight bits (Tarjan's algorithm, iterative)
+     */
+    private void condenseInfiniteComponents() {
+        int n = arena.size();
+        int[] deps = arena.deps();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] edge = new int[n];
+        int counter = 0;
+        for (int start = 0; start < n; start++) {
+            if (index[start] != -1 || !condensable(start)) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth] = start;
+            edge[start] = arena.depStart(start);
+            index[start] = lowLink[start] = counter++;
+            stack[stackSize++] = start;
+            onStack[start] = true;
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (edge[v] < arena.depEnd(v)) {
+                    int w = deps[edge[v]++];
+                    if (!condensable(w)) {
+                        continue;
+                    }
+                    if (index[w] == -1) {
+                        index[w] = lowLink[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        edge[w] = arena.depStart(w);
+                        callStack[++depth] = w;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        if (w != v) {
+                            merge(v, w, true, true, false);
+                        }
+                    } while (w != v);
+                }
+                depth--;
+                if (depth >= 0) {
+                    int caller = callStack[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+                }
+            }
+        }
+    }
+
+    private boolean condensable(int index) {
+        return arena.hasInfiniteWeight(index) && !isSource[index] && !isSink[index];
+    }
+
+    /**
+     * Merges bits with a single dependency or a single dependent bit into it
+     */
+    private boolean contractChains() {
+        boolean changed = false;
+        int[] neighbors = new int[1];
+        for (int v = 0; v < arena.size(); v++) {
+            if (find(v) != v || isTerminal(v)) {
+                continue;
+            }
+            if (successors(v, neighbors, 1) == 1 && weight[neighbors[0]] <= weight[v]) {
+                // all outgoing edges of v become internal
+                merge(neighbors[0], v, false, true, false);
+                changed = true;
+            } else if (predecessors(v, neighbors, 1) == 1 && !isSink[neighbors[0]] && weight[neighbors[0]] <= weight[v]) {
+                // all incoming edges of v become internal
+                merge(neighbors[0], v, true, false, false);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static class Signature {
+        final int[] predecessors;
+        final int[] successors;
+
+        Signature(int[] predecessors, int[] successors) {
+            this.predecessors = predecessors;
+            this.successors = successors;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Signature && Arrays.equals(predecessors, ((Signature) obj).predecessors)
+                    && Arrays.equals(successors, ((Signature) obj).successors);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(predecessors) * 31 + Arrays.hashCode(successors);
+        }
+    }
+
+    /**
+     * Merges bits that have the same dependencies and dependent bits
+     */
+    private boolean mergeParallelBits() {
+        boolean changed = false;
+        Map<Signature, Integer> groups = new HashMap<>();
+        int[] neighbors = new int[MAX_PARALLEL_DEGREE];
+        for (int v = 0; v < arena.size(); v++) {
+            if (find(v) != v || isTerminal(v)) {
+                continue;
+            }
+            int successorCount = successors(v, neighbors, MAX_PARALLEL_DEGREE);
+            if (successorCount == 0 || successorCount > MAX_PARALLEL_DEGREE) {
+                continue;
+            }
+            int[] successors = Arrays.copyOf(neighbors, successorCount);
+            int predecessorCount = predecessors(v, neighbors, MAX_PARALLEL_DEGREE);
+            if (predecessorCount == 0 || predecessorCount > MAX_PARALLEL_DEGREE) {
+                continue;
+            }
+            int[] predecessors = Arrays.copyOf(neighbors, predecessorCount);
+            Arrays.sort(successors);
+            Arrays.sort(predecessors);
+            Integer other = groups.putIfAbsent(new Signature(predecessors, successors), v);
+            if (other != null) {
+                merge(other, v, true, true, true);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Number of vertices of the reduced graph
+     */
+    public int size() {
+        return roots.length;
+    }
+
+    /**
+     * Vertex of the reduced graph that contains the bit with the passed arena index
+     */
+    public int vertex(int index) {
+        return vertices[find(index)];
+    }
+
+    public int sourceVertex() {
+        return 2 * size();
+    }
+
+    public int sinkVertex() {
+        return 2 * size() + 1;
+    }
+
+    /**
+     * Returns a builder that contains the split vertices (see {@link FlowNetwork#splitVertices(BitArena, int[], int[])})
+     * and the dependency edges of the reduced graph, but no edges from the {@link #sourceVertex()} or to the
+     * {@link #sinkVertex()}
+     */
+    public FlowNetwork.Builder splitVertices() {
+        FlowNetwork.Builder builder = new FlowNetwork.Builder(2 * size() + 2);
+        int[] successors = new int[arena.size()];
+        for (int v = 0; v < size(); v++) {
+            int root = roots[v];
+            builder.addEdge(inVertex(v), outVertex(v), weight[root]);
+            int count = successors(root, successors, arena.size());
+            for (int i = 0; i < count; i++) {
+                builder.addEdge(outVertex(v), inVertex(vertices[successors[i]]), INFINITE_CAPACITY);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Creates the flow network of the reduced graph for the sources and sinks
+     */
+    public FlowNetwork network() {
+        FlowNetwork.Builder builder = splitVertices();
+        for (int i = 0; i < arena.size(); i++) {
+            if (isSink[i]) {
+                builder.addEdge(outVertex(vertex(i)), sinkVertex(), INFINITE_CAPACITY);
+            }
+            if (isSource[i]) {
+                builder.addEdge(sourceVertex(), inVertex(vertex(i)), INFINITE_CAPACITY);
+            }
+        }
+        return builder.build(sourceVertex(), sinkVertex());
+    }
+
+    /**
+     * Returns the bits of the min cut of a maximum flow in a network of the reduced graph: the bits of the
+     * vertices whose in vertex is reachable in the residual network, but not their out vertex
+     */
+    public Set<Bit> cut(FlowNetwork network) {
+        boolean[] reachable = network.residualReachable();
+        Set<Bit> minCut = new HashSet<>();
+        for (int v = 0; v < size(); v++) {
+            if (reachable[inVertex(v)] && !reachable[outVertex(v)]) {
+                for (int m = cutHead[roots[v]]; m != -1; m = cutNext[m]) {
+                    minCut.add(arena.bit(m));
+                }
+            }
+        }
+        return minCut;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArenaReduction(%d of %d bits remaining)", size(), arena.size());
+    }
+}
@@ -0,0 +1,441 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.Context.INFTY;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+
+/**
+ * Compact struct-of-arrays representation of the part of a bit dependency graph that is
+ * reachable from a set of root bits.
+ * <p/>
+ * The bits are numbered densely in breadth first order (starting with the roots), their
+ * values are stored in a byte array, their dependencies in CSR (compressed sparse row) int arrays
+ * and their metadata in parallel arrays. The graph algorithms (e.g. the min cut computation)
+ * work on the arrays and only map back to {@link Bit} objects for their results.
+ * <p/>
+ * An arena is an immutable snapshot that is created from the bits and kept in addition to them,
+ * it is the input format of the min cut computations and does not replace the bits of the analysis.
+ */
+public class BitArena {
+
+    private static final byte INFINITE_WEIGHT = 1;
+
+    private static final B[] VALUES = B.values();
+
+    private final Bit[] bits;
+
+    /**
+     * Ordinal of the value of each bit
+     */
+    private final byte[] vals;
+
+    private final byte[] flags;
+
+    /**
+     * Dependencies of bit {@code i} are {@code deps[depStart[i]]} to {@code deps[depStart[i + 1] - 1]}
+     */
+    private final int[] depStart;
+
+    private final int[] deps;
+
+    /**
+     * Open addressing table (linear probing, by identity) that maps each bit to its index,
+     * a slot contains the index plus one or zero if it is empty
+     */
+    private final int[] indexes;
+
+    private int[] revStart = null;
+
+    private int[] revDeps = null;
+
+    private final PruningStatistics pruningStatistics;
+
+    /**
+     * Sizes of an arena before and after {@link #prune(Collection, Collection)}
+     */
+    public static class PruningStatistics {
+        public final int bits;
+        public final int dependencies;
+        public final int remainingBits;
+        public final int remainingDependencies;
+
+        PruningStatistics(int bits, int dependencies, int remainingBits, int remainingDependencies) {
+            this.bits = bits;
+            this.dependencies = dependencies;
+            this.remainingBits = remainingBits;
+            this.remainingDependencies = remainingDependencies;
+        }
+
+        public int prunedBits() {
+            return bits - remainingBits;
+        }
+
+        public int prunedDependencies() {
+            return dependencies - remainingDependencies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pruned %d of %d bits and %d of %d dependencies",
+                    prunedBits(), bits, prunedDependencies(), dependencies);
+        }
+    }
+
+    private BitArena(Bit[] bits, byte[] vals, byte[] flags, int[] depStart, int[] deps, int[] indexes,
+                     PruningStatistics pruningStatistics) {
+        this.bits = bits;
+        this.vals = vals;
+        this.flags = flags;
+        this.depStart = depStart;
+        this.deps = deps;
+        this.indexes = indexes;
+        this.pruningStatistics = pruningStatistics;
+    }
+
+    /**
+     * Creates the arena for all bits reachable from the roots
+     *
+     * @param roots bits to start at
+     * @param expand only the dependencies of bits that match are included
+     * @param weights weights of the bits, either 1 or {@link Context#INFTY}
+     */
+    public static BitArena create(Collection<Bit> roots, Predicate<Bit> expand, Function<Bit, Integer> weights) {
+        Builder builder = new Builder(Math.max(16, roots.size() * 4));
+        roots.forEach(builder::index);
+        for (int i = 0; i < builder.size; i++) {
+            Bit bit = builder.bits[i];
+            if (expand.test(bit)) {
+                for (Bit dep : bit.deps()) {
+                    builder.addDependency(builder.index(dep));
+                }
+            }
+            builder.finishBit(i, weights.apply(bit) == INFTY);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the arena for all bits reachable from the roots
+     */
+    public static BitArena create(Collection<Bit> roots, Function<Bit, Integer> weights) {
+        return create(roots, b -> true, weights);
+    }
+
+    private static class Builder {
+
+        private Bit[] bits;
+        private byte[] vals;
+        private byte[] flags;
+        private int[] depStart;
+        private int[] deps;
+        private int size = 0;
+        private int depCount = 0;
+        private int[] indexes;
+
+        Builder(int capacity) {
+            indexes = new int[tableSize(capacity)];
+            bits = new Bit[capacity];
+            vals = new byte[capacity];
+            flags = new byte[capacity];
+            depStart = new int[capacity + 1];
+            deps = new int[capacity];
+        }
+
+        int index(Bit bit) {
+            int index = find(indexes, bits, bit);
+            if (index != -1) {
+                return index;
+            }
+            if (size == bits.length) {
+                int capacity = bits.length * 2;
+                bits = Arrays.copyOf(bits, capacity);
+                vals = Arrays.copyOf(vals, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+                depStart = Arrays.copyOf(depStart, capacity + 1);
+            }
+            bits[size] = bit;
+            vals[size] = (byte) bit.val().ordinal();
+            if (size * 2 >= indexes.length) {
+                indexes = new int[indexes.length * 2];
+                for (int i = 0; i < size; i++) {
+                    insert(indexes, bits[i], i);
+                }
+            }
+            insert(indexes, bit, size);
+            return size++;
+        }
+
+        void addDependency(int dep) {
+            if (depCount == deps.length) {
+                deps = Arrays.copyOf(deps, deps.length * 2);
+            }
+            deps[depCount++] = dep;
+        }
+
+        void finishBit(int index, boolean infiniteWeight) {
+            if (infiniteWeight) {
+                flags[index] |= INFINITE_WEIGHT;
+            }
+            depStart[index + 1] = depCount;
+        }
+
+        BitArena build() {
+            // the table only references indexes, so it stays valid for the trimmed bits array
+            return new BitArena(Arrays.copyOf(bits, size), Arrays.copyOf(vals, size), Arrays.copyOf(flags, size),
+                    Arrays.copyOf(depStart, size + 1), Arrays.copyOf(deps, depCount), indexes, null);
+        }
+    }
+
+    /**
+     * Size of an index table for the passed number of bits: a power of two with a load factor of at most one half
+     */
+    private static int tableSize(int numberOfBits) {
+        return Integer.highestOneBit(Math.max(numberOfBits, 8) * 2 - 1) << 1;
+    }
+
+    private static int slot(Bit bit, int mask) {
+        int hash = System.identityHashCode(bit);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int find(int[] table, Bit[] bits, Bit bit) {
+        int mask = table.length - 1;
+        for (int slot = slot(bit, mask); table[slot] != 0; slot = (slot + 1) & mask) {
+            if (bits[table[slot] - 1] == bit) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(int[] table, Bit bit, int index) {
+        int mask = table.length - 1;
+        int slot = slot(bit, mask);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    public int size() {
+        return bits.length;
+    }
+
+    public int numberOfDependencies() {
+        return deps.length;
+    }
+
+    public Bit bit(int index) {
+        return bits[index];
+    }
+
+    /**
+     * Returns the index of the bit or {@code -1} if it is not part of the arena
+     */
+    public int indexOf(Bit bit) {
+        return find(indexes, bits, bit);
+    }
+
+    public boolean contains(Bit bit) {
+        return indexOf(bit) != -1;
+    }
+
+    public B val(int index) {
+        return VALUES[vals[index]];
+    }
+
+    public boolean hasInfiniteWeight(int index) {
+        return (flags[index] & INFINITE_WEIGHT) != 0;
+    }
+
+    public int weight(int index) {
+        return hasInfiniteWeight(index) ? INFTY : 1;
+    }
+
+    /**
+     * Start of the dependencies of the bit in {@link #deps()}
+     */
+    public int depStart(int index) {
+        return depStart[index];
+    }
+
+    /**
+     * End (exclusive) of the dependencies of the bit in {@link #deps()}
+     */
+    public int depEnd(int index) {
+        return depStart[index + 1];
+    }
+
+    /**
+     * Dependencies of all bits, use {@link #depStart(int)} and {@link #depEnd(int)} to
+     * get the dependencies of a specific bit. Must not be modified.
+     */
+    public int[] deps() {
+        return deps;
+    }
+
+    /**
+     * Start of the bits that depend on the bit in {@link #revDeps()}
+     */
+    public int revStart(int index) {
+        computeReverseDependencies();
+        return revStart[index];
+    }
+
+    /**
+     * End (exclusive) of the bits that depend on the bit in {@link #revDeps()}
+     */
+    public int revEnd(int index) {
+        computeReverseDependencies();
+        return revStart[index + 1];
+    }
+
+    /**
+     * Reverse dependencies of all bits, must not be modified.
+     */
+    public int[] revDeps() {
+        computeReverseDependencies();
+        return revDeps;
+    }
+
+    private synchronized void computeReverseDependencies() {
+        if (revDeps != null) {
+            return;
+        }
+        int[] start = new int[size() + 1];
+        for (int dep : deps) {
+            start[dep + 1]++;
+        }
+        for (int i = 0; i < size(); i++) {
+            start[i + 1] += start[i];
+        }
+        int[] pos = Arrays.copyOf(start, size());
+        int[] rev = new int[deps.length];
+        for (int i = 0; i < size(); i++) {
+            for (int j = depStart[i]; j < depStart[i + 1]; j++) {
+                rev[pos[deps[j]]++] = i;
+            }
+        }
+        revStart = start;
+        revDeps = rev;
+    }
+
+    /**
+     * Returns the indexes of the passed bits that are part of the arena
+     */
+    public int[] indexesOf(Collection<Bit> bits) {
+        return bits.stream().mapToInt(this::indexOf).filter(i -> i != -1).toArray();
+    }
+
+    /**
+     * Returns the arena that only contains the bits that lie on a path from a source to a sink,
+     * all other bits cannot be part of a minimal cut between them. The dependencies of sinks
+     * are omitted.
+     * <p/>
+     * The core is the intersection of the bits that are reachable from the sources (without passing
+     * through sinks) and the bits from which the sinks are reachable.
+     */
+    public BitArena prune(Collection<Bit> sources, Collection<Bit> sinks) {
+        boolean[] isSink = new boolean[size()];
+        int[] sinkIndexes = indexesOf(sinks);
+        for (int sink : sinkIndexes) {
+            isSink[sink] = true;
+        }
+        int[] queue = new int[size()];
+        // forward: reachable from a source
+        boolean[] forward = new boolean[size()];
+        int queueEnd = 0;
+        for (int source : indexesOf(sources)) {
+            if (!forward[source]) {
+                forward[source] = true;
+                queue[queueEnd++] = source;
+            }
+        }
+        for (int q = 0; q < queueEnd; q++) {
+            int cur = queue[q];
+            if (isSink[cur]) {
+                continue;
+            }
+            for (int j = depStart[cur]; j < depStart[cur + 1]; j++) {
+                if (!forward[deps[j]]) {
+                    forward[deps[j]] = true;
+                    queue[queueEnd++] = deps[j];
+                }
+            }
+        }
+        // backward: reaches a sink, only considering forward reachable bits
+        boolean[] core = new boolean[size()];
+        queueEnd = 0;
+        for (int sink : sinkIndexes) {
+            if (forward[sink] && !core[sink]) {
+                core[sink] = true;
+                queue[queueEnd++] = sink;
+            }
+        }
+        int[] revDeps = revDeps();
+        for (int q = 0; q < queueEnd; q++) {
+            int cur = queue[q];
+            for (int j = revStart[cur]; j < revStart[cur + 1]; j++) {
+                int rev = revDeps[j];
+                if (forward[rev] && !isSink[rev] && !core[rev]) {
+                    core[rev] = true;
+                    queue[queueEnd++] = rev;
+                }
+            }
+        }
+        // renumber the remaining bits densely, keeping their order
+        int[] newIndexes = new int[size()];
+        int newSize = 0;
+        for (int i = 0; i < size(); i++) {
+            newIndexes[i] = core[i] ? newSize++ : -1;
+        }
+        Bit[] newBits = new Bit[newSize];
+        byte[] newVals = new byte[newSize];
+        byte[] newFlags = new byte[newSize];
+        int[] newDepStart = new int[newSize + 1];
+        int[] newDeps = new int[deps.length];
+        int[] newIndexTable = new int[tableSize(newSize)];
+        int depCount = 0;
+        for (int i = 0; i < size(); i++) {
+            int n = newIndexes[i];
+            if (n == -1) {
+                continue;
+            }
+            newBits[n] = bits[i];
+            newVals[n] = vals[i];
+            newFlags[n] = flags[i];
+            insert(newIndexTable, bits[i], n);
+            if (!isSink[i]) {
+                for (int j = depStart[i]; j < depStart[i + 1]; j++) {
+                    if (core[deps[j]]) {
+                        newDeps[depCount++] = newIndexes[deps[j]];
+                    }
+                }
+            }
+            newDepStart[n + 1] = depCount;
+        }
+        return new BitArena(newBits, newVals, newFlags, newDepStart, Arrays.copyOf(newDeps, depCount), newIndexTable,
+                new PruningStatistics(size(), numberOfDependencies(), newSize, depCount));
+    }
+
+    /**
+     * Returns the statistics of the pruning that created this arena or {@code null} if it is not pruned
+     */
+    public PruningStatistics pruningStatistics() {
+        return pruningStatistics;
+    }
+
+    @Override
+    public String toString() {
+        if (pruningStatistics != null) {
+            return String.format("BitArena(%d bits, %d dependencies, %s)", size(), numberOfDependencies(), pruningStatistics);
+        }
+        return String.format("BitArena(%d bits, %d dependencies)", size(), numberOfDependencies());
+    }
+}
@@ -0,0 +1,253 @@
+package edu.kit.nildumu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+import edu.kit.nildumu.Lattices.Sec;
+
+/**
+ * Per bit metadata of a context: the security level, the infinite weight flag and the
+ * repl function ({@link ModsCreator}) of each bit.
+ * <p/>
+ * The metadata is stored in arrays that are indexed by the bit number, instead of
+ * a hash map entry per bit and property. The arrays are split into pages that are
+ * copied on write, so that forked contexts can share them. Bits of other allocators
+ * (e.g. the interned constant bits) are stored in a separate paged space per allocator.
+ */
+class BitMetadata {
+
+    private static final int PAGE_BITS = 10;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static class Page {
+
+        /**
+         * Index of the security level in {@link BitMetadata#levels} plus one, zero if unset
+         */
+        final byte[] secs;
+
+        final long[] infiniteWeight;
+
+        /**
+         * Allocated on the first write
+         */
+        ModsCreator[] repls;
+
+        /**
+         * Shared between the metadata of forked contexts, has to be copied before it is modified
+         */
+        boolean shared = false;
+
+        Page() {
+            this(new byte[PAGE_SIZE], new long[PAGE_SIZE / 64], null);
+        }
+
+        private Page(byte[] secs, long[] infiniteWeight, ModsCreator[] repls) {
+            this.secs = secs;
+            this.infiniteWeight = infiniteWeight;
+            this.repls = repls;
+        }
+
+        Page copy() {
+            return new Page(secs.clone(), infiniteWeight.clone(), repls == null ? null : repls.clone());
+        }
+    }
+
+    /**
+     * Pages of the bits of a single allocator, indexed by the bit number
+     */
+    private static class Space {
+
+        Page[] pages;
+
+        Space(Page[] pages) {
+            this.pages = pages;
+        }
+
+        Space() {
+            this(new Page[16]);
+        }
+
+        Space copy() {
+            for (Page page : pages) {
+                if (page != null) {
+                    page.shared = true;
+                }
+            }
+            return new Space(pages.clone());
+        }
+
+        /**
+         * Returns the page of the bit number or {@code null} if it has none
+         */
+        Page page(int bitNo) {
+            int pageIndex = bitNo >> PAGE_BITS;
+            return pageIndex < pages.length ? pages[pageIndex] : null;
+        }
+
+        Page writablePage(int bitNo) {
+            int pageIndex = bitNo >> PAGE_BITS;
+            if (pageIndex >= pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(pages.length * 2, pageIndex + 1));
+            }
+            Page page = pages[pageIndex];
+            if (page == null) {
+                page = new Page();
+                pages[pageIndex] = page;
+            } else if (page.shared) {
+                page = page.copy();
+                pages[pageIndex] = page;
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Security levels that are used, the list is only appended to, so that it can be shared
+     */
+    private final List<Sec<?>> levels;
+
+    private int numberOfInfiniteWeightBits = 0;
+
+    private final BitIdAllocator allocator;
+
+    /**
+     * Space of the bits of the allocator
+     */
+    private final Space space;
+
+    /**
+     * Spaces of the bits that do not belong to the allocator, one per foreign allocator
+     */
+    private final Map<BitIdAllocator, Space> foreignSpaces;
+
+    BitMetadata(BitIdAllocator allocator) {
+        this(allocator, new ArrayList<>(), new Space(), 0, new IdentityHashMap<>());
+    }
+
+    private BitMetadata(BitIdAllocator allocator, List<Sec<?>> levels, Space space, int numberOfInfiniteWeightBits,
+                        Map<BitIdAllocator, Space> foreignSpaces) {
+        this.allocator = allocator;
+        this.levels = levels;
+        this.space = space;
+        this.numberOfInfiniteWeightBits = numberOfInfiniteWeightBits;
+        this.foreignSpaces = foreignSpaces;
+    }
+
+    /**
+     * Returns a copy that shares all pages with this instance until either of them is modified
+     */
+    BitMetadata copy() {
+        Map<BitIdAllocator, Space> foreignSpaces = new IdentityHashMap<>();
+        this.foreignSpaces.forEach((a, s) -> foreignSpaces.put(a, s.copy()));
+        return new BitMetadata(allocator, new ArrayList<>(levels), space.copy(), numberOfInfiniteWeightBits,
+                foreignSpaces);
+    }
+
+    /**
+     * Returns the page of the bit or {@code null} if it has none, does not create spaces for
+     * foreign allocators, so that reading is safe for concurrent readers
+     */
+    private Page page(Bit bit) {
+        Space space = bit.allocator == allocator ? this.space : foreignSpaces.get(bit.allocator);
+        return space == null ? null : space.page(bit.bitNo);
+    }
+
+    private Page writablePage(Bit bit) {
+        Space space = bit.allocator == allocator ? this.space
+                : foreignSpaces.computeIfAbsent(bit.allocator, a -> new Space());
+        return space.writablePage(bit.bitNo);
+    }
+
+    private int offset(Bit bit) {
+        return bit.bitNo & (PAGE_SIZE - 1);
+    }
+
+    /**
+     * Returns the security level of the bit or {@code null} if none is assigned
+     */
+    Sec<?> sec(Bit bit) {
+        Page page = page(bit);
+        if (page == null) {
+            return null;
+        }
+        int level = page.secs[offset(bit)];
+        return level == 0 ? null : levels.get(level - 1);
+    }
+
+    /**
+     * Sets the security level of the bit, changing it later is not supported
+     */
+    void sec(Bit bit, Sec<?> sec) {
+        Sec<?> current = sec(bit);
+        if (current != null) {
+            if (current != sec) {
+                throw new UnsupportedOperationException(
+                        String.format("Changing the security level of bit %s from %s to %s is not supported",
+                                bit, current, sec));
+            }
+            return;
+        }
+        int level = levels.indexOf(sec);
+        if (level == -1) {
+            levels.add(sec);
+            level = levels.size() - 1;
+        }
+        if (level >= Byte.MAX_VALUE) {
+            throw new UnsupportedOperationException("Too many security levels");
+        }
+        writablePage(bit).secs[offset(bit)] = (byte) (level + 1);
+    }
+
+    boolean hasInfiniteWeight(Bit bit) {
+        Page page = page(bit);
+        if (page == null) {
+            return false;
+        }
+        int offset = offset(bit);
+        return (page.infiniteWeight[offset >> 6] & (1L << offset)) != 0;
+    }
+
+    void infiniteWeight(Bit bit, boolean infinite) {
+        if (hasInfiniteWeight(bit) == infinite) {
+            return;
+        }
+        Page page = writablePage(bit);
+        int offset = offset(bit);
+        page.infiniteWeight[offset >> 6] ^= 1L << offset;
+        numberOfInfiniteWeightBits += infinite ? 1 : -1;
+    }
+
+    int numberOfInfiniteWeightBits() {
+        return numberOfInfiniteWeightBits;
+    }
+
+    /**
+     * Returns the repl function of the bit or {@code null} if none is assigned
+     */
+    ModsCreator repl(Bit bit) {
+        Page page = page(bit);
+        return page == null || page.repls == null ? null : page.repls[offset(bit)];
+    }
+
+    /**
+     * Sets the repl function, {@code null} removes it
+     */
+    void repl(Bit bit, ModsCreator modsCreator) {
+        Page page = page(bit);
+        if (modsCreator == null && (page == null || page.repls == null)) {
+            return;
+        }
+        page = writablePage(bit);
+        if (page.repls == null) {
+            page.repls = new ModsCreator[PAGE_SIZE];
+        }
+        page.repls[offset(bit)] = modsCreator;
+    }
+}
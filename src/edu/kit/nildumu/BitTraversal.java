@@ -0,0 +1,219 @@
+package edu.kit.nildumu;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+
+/**
+ * Depth first traversal of the bit dependency graph, that is shared by all reachability
+ * computations.
+ * <p/>
+ * Visited bits are marked by stamping the current epoch into an array that is indexed by the bit
+ * number (bits of other allocators use a hash map). The marks and the stack are reused across
+ * traversals: {@link #get()} returns an unused instance from a small per thread pool, so that
+ * nested traversals reuse their marks too.
+ */
+public class BitTraversal {
+
+    /**
+     * Maximum nesting depth of traversals that use pooled instances
+     */
+    private static final int POOL_SIZE = 4;
+
+    private static final ThreadLocal<BitTraversal[]> pool = ThreadLocal.withInitial(() -> new BitTraversal[POOL_SIZE]);
+
+    private BitIdAllocator allocator = null;
+
+    private int[] marks = new int[0];
+
+    private int epoch = 0;
+
+    private final Map<Bit, Boolean> foreignMarks = new IdentityHashMap<>();
+
+    private Bit[] stack = new Bit[64];
+
+    private boolean inUse = false;
+
+    private BitTraversal() {
+    }
+
+    /**
+     * Returns an unused traversal instance of the current thread, only traversals that are nested
+     * deeper than the pool size get a new instance
+     */
+    public static BitTraversal get() {
+        BitTraversal[] traversals = pool.get();
+        for (int i = 0; i < traversals.length; i++) {
+            if (traversals[i] == null) {
+                traversals[i] = new BitTraversal();
+            }
+            if (!traversals[i].inUse) {
+                return traversals[i];
+            }
+        }
+        return new BitTraversal();
+    }
+
+    /**
+     * Visits all bits reachable from the start bits in pre order, every bit at most once
+     *
+     * @param visitor returns {@code false} to abort the traversal
+     * @param expand push the dependencies of the bit?
+     * @param follow only dependencies that match are visited
+     * @return {@code false} if the traversal was aborted
+     */
+    public boolean walk(Collection<Bit> starts, Predicate<Bit> visitor, Predicate<Bit> expand, Predicate<Bit> follow) {
+        inUse = true;
+        try {
+            start(starts);
+            int size = 0;
+            for (Bit start : starts) {
+                size = push(start, size);
+            }
+            while (size > 0) {
+                Bit cur = stack[--size];
+                stack[size] = null;
+                if (!mark(cur)) {
+                    continue;
+                }
+                if (!visitor.test(cur)) {
+                    Arrays.fill(stack, 0, size, null);
+                    return false;
+                }
+                if (expand.test(cur)) {
+                    for (Bit dep : cur.deps()) {
+                        if (!isMarked(dep) && follow.test(dep)) {
+                            size = push(dep, size);
+                        }
+                    }
+                }
+            }
+            return true;
+        } finally {
+            inUse = false;
+        }
+    }
+
+    /**
+     * Visits all bits reachable from the start bits in pre order, like
+     * {@link Lattices.BitLattice#walkBits(Bit, Consumer, Predicate)}
+     *
+     * @param ignoreBit the dependencies of matching bits are not visited
+     */
+    public void walk(Collection<Bit> starts, Consumer<Bit> consumer, Predicate<Bit> ignoreBit) {
+        walk(starts, b -> {
+            consumer.accept(b);
+            return true;
+        }, b -> !ignoreBit.test(b), b -> true);
+    }
+
+    /**
+     * Returns the target bits that are reachable from the start bit via unknown bits,
+     * without passing through other targets
+     */
+    public Set<Bit> reachableTargets(Bit start, Predicate<Bit> isTarget) {
+        Set<Bit> targets = new HashSet<>();
+        walk(Collections.singletonList(start), b -> {
+            if (isTarget.test(b)) {
+                targets.add(b);
+            }
+            return true;
+        }, b -> !isTarget.test(b), Bit::isUnknown);
+        return targets;
+    }
+
+    /**
+     * Counts the target bits that are reachable from the start bit via unknown bits,
+     * without passing through other targets
+     *
+     * @param limit stop counting when the limit is reached
+     */
+    public int countReachableTargets(Bit start, Predicate<Bit> isTarget, int limit) {
+        int[] count = {0};
+        walk(Collections.singletonList(start), b -> {
+            if (isTarget.test(b)) {
+                count[0]++;
+            }
+            return count[0] < limit;
+        }, b -> !isTarget.test(b), Bit::isUnknown);
+        return count[0];
+    }
+
+    /**
+     * Returns the bits of the passed set that are reachable from the start bit,
+     * stops early if all have been found
+     */
+    public Set<Bit> reachableBitsOf(Bit start, Set<Bit> bits) {
+        Set<Bit> reachable = new HashSet<>();
+        walk(Collections.singletonList(start), b -> {
+            if (bits.contains(b)) {
+                reachable.add(b);
+            }
+            return reachable.size() < bits.size();
+        }, b -> true, b -> true);
+        return reachable;
+    }
+
+    /**
+     * Prepares the marks for a new traversal, they are indexed by the bit numbers of the allocator
+     * of the first start bit
+     */
+    private void start(Collection<Bit> starts) {
+        BitIdAllocator startAllocator = starts.isEmpty() ? allocator : starts.iterator().next().allocator;
+        if (startAllocator != allocator) {
+            allocator = startAllocator;
+            Arrays.fill(marks, 0);
+            epoch = 0;
+        }
+        if (allocator != null && marks.length < allocator.numberOfAllocatedIds()) {
+            marks = Arrays.copyOf(marks, Math.max(marks.length * 2, allocator.numberOfAllocatedIds()));
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            epoch = 1;
+        }
+        if (!foreignMarks.isEmpty()) {
+            foreignMarks.clear();
+        }
+    }
+
+    private boolean isMarked(Bit bit) {
+        if (bit.allocator == allocator && bit.bitNo < marks.length) {
+            return marks[bit.bitNo] == epoch;
+        }
+        return foreignMarks.containsKey(bit);
+    }
+
+    /**
+     * Marks the bit
+     *
+     * @return {@code true} if the bit was not marked before
+     */
+    private boolean mark(Bit bit) {
+        if (bit.allocator == allocator && bit.bitNo < marks.length) {
+            if (marks[bit.bitNo] == epoch) {
+                return false;
+            }
+            marks[bit.bitNo] = epoch;
+            return true;
+        }
+        return foreignMarks.put(bit, Boolean.TRUE) == null;
+    }
+
+    private int push(Bit bit, int size) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[size] = bit;
+        return size + 1;
+    }
+}
@@ -4,7 +4,6 @@ import static edu.kit.nildumu.Lattices.bl;
 import static edu.kit.nildumu.Lattices.bs;
 import static edu.kit.nildumu.Lattices.vl;
 import static edu.kit.nildumu.util.DefaultMap.ForbiddenAction.FORBID_DELETIONS;
-import static edu.kit.nildumu.util.DefaultMap.ForbiddenAction.FORBID_VALUE_UPDATES;
 import static edu.kit.nildumu.BasicLogger.*;
 
 import java.util.ArrayDeque;
@@ -30,11 +29,6 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import com.ibm.wala.shrikeBT.IBinaryOpInstruction;
-import com.ibm.wala.shrikeBT.IBinaryOpInstruction.IOperator;
-import com.ibm.wala.shrikeBT.IConditionalBranchInstruction;
-import com.ibm.wala.shrikeBT.IShiftInstruction;
-import com.ibm.wala.shrikeBT.IUnaryOpInstruction;
 import com.ibm.wala.ssa.ConstantValue;
 import com.ibm.wala.ssa.ISSABasicBlock;
 import com.ibm.wala.ssa.SSABinaryOpInstruction;
@@ -55,7 +49,9 @@ import edu.kit.joana.wala.core.PDGNode;
 import edu.kit.nildumu.Lattices.B;
 import edu.kit.nildumu.Lattices.BasicSecLattice;
 import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
 import edu.kit.nildumu.Lattices.BitLattice;
+import edu.kit.nildumu.Lattices.BitTable;
 import edu.kit.nildumu.Lattices.DependencySet;
 import edu.kit.nildumu.Lattices.Lattice;
 import edu.kit.nildumu.Lattices.Sec;
@@ -96,33 +92,18 @@ public class Context {
 
     final int maxBitWidth;
 
-    final IOValues input = new IOValues();
+    IOValues input = new IOValues();
 
-    final IOValues output = new IOValues();
+    IOValues output = new IOValues();
     
     private int unrollCount = 1;
 
     private final Stack<State> variableStates = new Stack<>();
 
-    private final DefaultMap<Bit, Sec<?>> secMap =
-            new DefaultMap<>(
-                    new IdentityHashMap<>(),
-                    new DefaultMap.Extension<Bit, Sec<?>>() {
-                        @Override
-                        public Sec<?> defaultValue(Map<Bit, Sec<?>> map, Bit key) {
-                            return sl.bot();
-                        }
-                    },
-                    FORBID_DELETIONS,
-                    FORBID_VALUE_UPDATES);
-
-    private final DefaultMap<SDGNode, Operator> operatorPerNode = new DefaultMap<>(new IdentityHashMap<>(), new DefaultMap.Extension<SDGNode, Operator>() {
-
-        @Override
-        public Operator defaultValue(Map<SDGNode, Operator> map, SDGNode node) {
-          	return operatorForNodeNotCached(node);
-        }
-    }, FORBID_DELETIONS, FORBID_VALUE_UPDATES);
+    /**
+     * Security levels, weights and repl functions of the bits
+     */
+    private final BitMetadata bitMetadata;
 
     static class CallPath {
         private final List<CallSite> path;
@@ -189,11 +170,89 @@ public class Context {
         
         final Map<AffectingConditional, Mods> modsMap = new HashMap<>();
 
+        /**
+         * Arguments of the last evaluation per node
+         */
+        final Map<SDGNode, EvaluationMemo> memos = new HashMap<>();
+
+        /**
+         * Shared between forked contexts, has to be copied before it is modified
+         */
+        private boolean shared = false;
+
         private NodeValueState(CallPath path, Method method) {
             this.path = path;
             this.method = method;
         }
+
+        /**
+         * Returns a copy with mapped node values and mods, the memos are dropped as they
+         * reference the original bits
+         */
+        private NodeValueState map(Function<Value, Value> valueMapper, Function<Bit, Bit> bitMapper) {
+            NodeValueState state = new NodeValueState(path, method);
+            nodeValueMap.forEach((n, v) -> state.nodeValueMap.put(n, valueMapper.apply(v)));
+            state.count.putAll(count);
+            modsMap.forEach((c, m) -> state.modsMap.put(c, m.map(bitMapper)));
+            return state;
+        }
+
+        private NodeValueState copy() {
+            NodeValueState state = new NodeValueState(path, method);
+            state.nodeValueMap.putAll(nodeValueMap);
+            state.count.putAll(count);
+            state.modsMap.putAll(modsMap);
+            state.memos.putAll(memos);
+            return state;
+        }
+    }
+
+    /**
+     * Argument bits of an evaluation and their versions (value and number of dependencies, that
+     * only grow), an operator that only depends on its arguments yields the same result
+     * if the arguments match
+     */
+    private static class EvaluationMemo {
+
+        private final Bit[] bits;
+
+        private final int[] versions;
+
+        private EvaluationMemo(List<Value> arguments) {
+            int size = arguments.stream().mapToInt(Value::size).sum();
+            bits = new Bit[size];
+            versions = new int[size];
+            int i = 0;
+            for (Value argument : arguments) {
+                for (Bit bit : argument) {
+                    bits[i] = bit;
+                    versions[i++] = version(bit);
+                }
+            }
+        }
+
+        private static int version(Bit bit) {
+            return (bit.deps().size() << 2) | bit.val().ordinal();
+        }
+
+        boolean matches(List<Value> arguments) {
+            int i = 0;
+            for (Value argument : arguments) {
+                for (Bit bit : argument) {
+                    if (i >= bits.length || bits[i] != bit || versions[i] != version(bit)) {
+                        return false;
+                    }
+                    i++;
+                }
+            }
+            return i == bits.length;
+        }
     }
+
+    /**
+     * Number of node evaluations that were skipped because the arguments did not change
+     */
+    private int savedEvaluations = 0;
     
 
     private final Map<CallPath, NodeValueState> nodeValueStates = new HashMap<>();
@@ -202,14 +261,10 @@ public class Context {
 
     private NodeValueState nodeValueState;
 
-    private final DefaultMap<Bit, ModsCreator> replMap = new DefaultMap<>((map, bit) -> {
-    	return ((c, b, a) -> choose(b, a) == a ? new Mods(b, a) : Mods.empty());
-    });
+    private final ModsCreator defaultModsCreator = (c, b, a) -> c.choose(b, a) == a ? new Mods(b, a) : Mods.empty();
     
     /*-------------------------- loop mode specific -------------------------------*/
 
-    private final HashMap<Bit, Integer> weightMap = new HashMap<>();
-
     public static final int INFTY = Integer.MAX_VALUE;
 
     /*-------------------------- methods -------------------------------*/
@@ -218,16 +273,215 @@ public class Context {
 
     private Stack<Set<Bit>> methodParameterBits = new Stack<>();
 
+    /*-------------------------- forking -------------------------------*/
+
+    /**
+     * The input and output values are shared with a forked context
+     */
+    private boolean sharesIOValues = false;
+
+    /**
+     * The bits are shared with a forked context, they have to be copied before the first merge
+     */
+    private boolean sharesBits = false;
+
+    /**
+     * Allocates the numbers of the bits created by this context (and its forks), it is bound to
+     * the current thread by the analysis entry points
+     */
+    private final BitIdAllocator bitIdAllocator;
+
     /*-------------------------- unspecific -------------------------------*/
 
     Context(Program program) {
-        this.sl = BasicSecLattice.get();
+        this(program, BasicSecLattice.get());
+    }
+
+    /**
+     * Creates a context that uses the passed security lattice
+     */
+    Context(Program program, SecurityLattice<?> sl) {
+        this.bitIdAllocator = new BitIdAllocator();
+        this.sl = sl;
         this.maxBitWidth = program.intWidth;
         this.variableStates.push(new State());
         ValueLattice.get().bitWidth = maxBitWidth;
         this.program = program;
         nodeValueStates.put(currentCallPath, new NodeValueState(currentCallPath, program.main));
         nodeValueState = nodeValueStates.get(currentCallPath);
+        this.bitMetadata = new BitMetadata(bitIdAllocator);
+    }
+
+    /**
+     * Creates a fork of the passed context, see {@link #fork()}
+     */
+    private Context(Context parent) {
+        this.program = parent.program;
+        this.bitIdAllocator = parent.bitIdAllocator;
+        this.sl = parent.sl;
+        this.maxBitWidth = parent.maxBitWidth;
+        this.unrollCount = parent.unrollCount;
+        this.input = parent.input;
+        this.output = parent.output;
+        parent.variableStates.forEach(s -> variableStates.push(s.copy()));
+        this.bitMetadata = parent.bitMetadata.copy();
+        this.nodeValueStates.putAll(parent.nodeValueStates);
+        this.nodeValueStates.values().forEach(s -> s.shared = true);
+        this.currentCallPath = parent.currentCallPath;
+        this.nodeValueState = parent.nodeValueState;
+        this.methodInvocationHandler = parent.methodInvocationHandler;
+        this.methodParameterBits.addAll(parent.methodParameterBits);
+        this.useBitArena = parent.useBitArena;
+        this.minCutAlgorithm = parent.minCutAlgorithm;
+        this.leakageParallelism = parent.leakageParallelism;
+        this.incrementalLeakage = parent.incrementalLeakage;
+        this.reduceBitGraph = parent.reduceBitGraph;
+        this.memoizeEvaluations = parent.memoizeEvaluations;
+        this.bitTable = parent.bitTable == null ? null : new BitTable();
+        this.sharesIOValues = parent.sharesIOValues = true;
+        this.sharesBits = parent.sharesBits = true;
+    }
+
+    /**
+     * Forks this context, the node values, mods, bit metadata (weights, security levels and
+     * repl functions) and input and output values are shared copy-on-write between both contexts. This allows to continue
+     * the analysis with different settings (e.g. the unroll count, the attacker level or
+     * additional outputs) without recomputing the shared prefix.
+     * <p/>
+     * The bits are shared too: before a context merges into a node value for the first time after
+     * the fork, it copies all bits that it references (see {@link #ownBits()}), so that neither
+     * context sees the modifications of the other.
+     */
+    public Context fork() {
+        return new Context(this);
+    }
+
+    /**
+     * Copies the input and output values if they are shared with a forked context
+     */
+    private void ownIOValues(){
+        if (sharesIOValues){
+            input = input.copy();
+            output = output.copy();
+            sharesIOValues = false;
+        }
+    }
+
+    /**
+     * Returns the current node value state, copying it before if it is shared
+     * with a forked context
+     */
+    private NodeValueState writableNodeValueState(){
+        if (nodeValueState.shared){
+            nodeValueState = nodeValueState.copy();
+            nodeValueStates.put(currentCallPath, nodeValueState);
+        }
+        return nodeValueState;
+    }
+
+    /**
+     * Copies all bits of this context's allocator that are reachable from the node values, variables,
+     * input and output values and parameter bits if they are shared with a forked context, and replaces
+     * them everywhere. The copies keep the security levels, weights and repl functions of the originals.
+     */
+    private void ownBits(){
+        if (!sharesBits){
+            return;
+        }
+        sharesBits = false;
+        List<Bit> roots = new ArrayList<>();
+        nodeValueStates.values().forEach(s -> s.nodeValueMap.values().forEach(v -> v.forEach(roots::add)));
+        variableStates.forEach(s -> {
+            s.variableNames().forEach(n -> s.get(n).forEach(roots::add));
+            s.getReturnValue().forEach(roots::add);
+        });
+        input.getValues().forEach(p -> p.second.forEach(roots::add));
+        output.getValues().forEach(p -> p.second.forEach(roots::add));
+        methodParameterBits.forEach(roots::addAll);
+        Map<Bit, Bit> copies = new IdentityHashMap<>();
+        BitTraversal.get().walk(roots, b -> {
+            if (isOwnBit(b)){
+                copies.put(b, b.copy());
+            }
+        }, b -> !isOwnBit(b));
+        Function<Bit, Bit> bitMapper = b -> copies.getOrDefault(b, b);
+        copies.forEach((orig, copy) -> {
+            copy.alterDependencies(bitMapper);
+            Sec<?> sec = bitMetadata.sec(orig);
+            if (sec != null){
+                bitMetadata.sec(copy, sec);
+            }
+            bitMetadata.infiniteWeight(copy, bitMetadata.hasInfiniteWeight(orig));
+            ModsCreator modsCreator = bitMetadata.repl(orig);
+            if (modsCreator != null){
+                bitMetadata.repl(copy, (c, b, a) -> modsCreator.apply(c, orig, a).map(bitMapper));
+            }
+        });
+        Map<Value, Value> values = new IdentityHashMap<>();
+        Function<Value, Value> valueMapper = v -> values.computeIfAbsent(v, o -> {
+            if (o.stream().noneMatch(copies::containsKey)){
+                return o;
+            }
+            return o.map(bitMapper).description(o.description()).node(o.node());
+        });
+        nodeValueStates.replaceAll((path, s) -> s.map(valueMapper, bitMapper));
+        nodeValueState = nodeValueStates.get(currentCallPath);
+        variableStates.forEach(s -> {
+            new ArrayList<>(s.variableNames()).forEach(n -> s.set(n, valueMapper.apply(s.get(n))));
+            s.setReturnValue(valueMapper.apply(s.getReturnValue()));
+        });
+        input = input.map(valueMapper);
+        output = output.map(valueMapper);
+        sharesIOValues = false;
+        methodParameterBits.replaceAll(bits -> bits.stream().map(bitMapper).collect(Collectors.toSet()));
+        if (bitTable != null){
+            bitTable = new BitTable();
+        }
+        bitGraphChanged();
+    }
+
+    private boolean isOwnBit(Bit bit){
+        return !bit.isInterned() && bit.allocator == bitIdAllocator;
+    }
+
+    /**
+     * Interned constants and bits of other allocators are never modified
+     */
+    private boolean isFrozen(Bit bit){
+        return !isOwnBit(bit);
+    }
+
+    /**
+     * Number of node evaluations that were skipped because the argument bits did not change
+     */
+    public int numberOfSavedEvaluations(){
+        return savedEvaluations;
+    }
+
+    /**
+     * Allocator of the bit numbers of this analysis
+     */
+    public BitIdAllocator bitIdAllocator(){
+        return bitIdAllocator;
+    }
+
+    /**
+     * Returns a copy of the value if it contains interned constant bits or bits of other allocators,
+     * the copied bits keep their weights and repl functions
+     */
+    private Value thaw(Value value){
+        if (value.stream().noneMatch(this::isFrozen)){
+            return value;
+        }
+        return value.stream().map(b -> {
+            if (!isFrozen(b)){
+                return b;
+            }
+            Bit copy = b.copy();
+            repl(copy, repl(b));
+            weight(copy, weight(b));
+            return copy;
+        }).collect(Value.collector());
     }
 
     public static B v(Bit bit) {
@@ -244,7 +498,8 @@ public class Context {
      * @return sec or bot if not assigned
      */
     public Sec sec(Bit bit) {
-        return secMap.get(bit);
+        Sec<?> sec = bitMetadata.sec(bit);
+        return sec == null ? sl.bot() : sec;
     }
 
     /**
@@ -255,11 +510,15 @@ public class Context {
      * @return the set level
      */
     private Sec sec(Bit bit, Sec<?> level) {
-        return secMap.put(bit, level);
+        bitMetadata.sec(bit, level);
+        return level;
     }
 
     public Value addInputValue(Sec<?> sec, Value value){
+        value = value.copyIfInterned();
+        ownIOValues();
         input.add(sec, value);
+        bitGraphChanged();
         for (Bit bit : value){
             if (bit.val() == B.U){
                 if (!bit.deps().isEmpty()){
@@ -272,7 +531,10 @@ public class Context {
     }
 
     Value addOutputValue(Sec<?> sec, Value value){
+        value = value.copyIfInterned();
+        ownIOValues();
         output.add(sec, value);
+        bitGraphChanged();
         return value;
     }
 
@@ -285,15 +547,18 @@ public class Context {
     }
 
     Value nodeValue(SDGNode node, Value value){
-        return nodeValueState.nodeValueMap.put(node, value);
+        return writableNodeValueState().nodeValueMap.put(node, value);
     }
     
     boolean hasNodeValue(SDGNode node) {
     	return nodeValueState.nodeValueMap.containsKey(node);
     }
 
+    /**
+     * Returns the operator for the passed node or {@code null} if the node can be ignored
+     */
     Operator operatorForNode(SDGNode node){
-        return operatorPerNode.get(node);
+        return program.getOperator(node);
     }
 
     private Value op(SDGNode node, List<Value> arguments){
@@ -301,7 +566,7 @@ public class Context {
     	if (operator == null) {
     		return new Value(bl.create(B.X));
     	}
-        return operatorForNode(node).compute(this, node, arguments);
+        return operator.compute(this, node, arguments);
     }
 
     private List<Value> opArgs(SDGNode node, Function<SDGNode, Value> nodeToValue, List<SDGNode> directParamNodes){
@@ -362,20 +627,38 @@ public class Context {
         	newValue = evaluateCall(node);
         } else {
         	List<Value> args = opArgs(node);
-    		
+        	Operator operator = operatorForNode(node);
+        	boolean memoize = memoizeEvaluations && operator != null && operator.dependsOnlyOnArguments()
+        			&& hasNodeValue(resNode) && nodeValueState.count.get(resNode) >= unrollCount;
+        	if (memoize) {
+        		EvaluationMemo memo = nodeValueState.memos.get(resNode);
+        		if (memo != null && memo.matches(args)) {
+        			// the result would equal the merged value
+        			savedEvaluations++;
+        			writableNodeValueState().count.put(resNode, nodeValueState.count.get(resNode) + 1);
+        			return false;
+        		}
+        	}
         	newValue = op(node, args);
+        	if (memoize) {
+        		writableNodeValueState().memos.put(resNode, new EvaluationMemo(args));
+        	}
         }
         log(newValue.repr());
         
         boolean somethingChanged = false;
         if (hasNodeValue(resNode) && nodeValueState.count.get(resNode) >= unrollCount) { // dismiss first iteration
-            Value oldValue = nodeValue(resNode);
+            ownBits();
+            Value oldValue = thaw(nodeValue(resNode));
+            if (oldValue != nodeValue(resNode)){
+                nodeValue(resNode, oldValue);
+            }
             somethingChanged = merge(oldValue, newValue);
         } else {
         	nodeValue(resNode, newValue);
             somethingChanged = true;
         }
-        nodeValueState.count.put(resNode, nodeValueState.count.get(resNode) + 1);
+        writableNodeValueState().count.put(resNode, nodeValueState.count.get(resNode) + 1);
         newValue.description(node.getLabel()).node(node);
         return somethingChanged;
     }
@@ -449,14 +732,194 @@ public class Context {
      * @param ignoreBit ignore bits (and all that depend on it, if not reached otherwise)
      */
     public void walkBits(Consumer<Bit> consumer, Predicate<Bit> ignoreBit){
-        Set<Bit> alreadyVisitedBits = new HashSet<>();
-        for (Pair<Sec, Bit> secBitPair : output.getBits()){
-            BitLattice.get().walkBits(secBitPair.second, consumer, ignoreBit, alreadyVisitedBits);
-        }
+        BitTraversal.get().walk(output.getBits().stream().map(p -> p.second).filter(ignoreBit.negate())
+                .collect(Collectors.toList()), consumer, ignoreBit);
     }
 
     private Map<Sec<?>, MinCut.ComputationResult> leaks = null;
 
+    private boolean useBitArena = false;
+
+    private BitTable bitTable = null;
+
+    /**
+     * Enables the sharing of structurally identical intermediate bits of the bitwise operators
+     * (see {@link BitTable}), this reduces the size of the bit graph
+     */
+    public Context hashConsBits(boolean enable){
+        bitTable = enable ? new BitTable() : null;
+        return this;
+    }
+
+    /**
+     * Returns the hash-consing table or {@code null} if hash-consing is disabled
+     */
+    public BitTable bitTable(){
+        return bitTable;
+    }
+
+    private BitArena bitArena = null;
+
+    /**
+     * Use a shared {@link BitArena} snapshot of the bit graph as the input of the leakage computations,
+     * instead of walking the bit objects for every security level. The snapshot is kept in addition
+     * to the bits till the bit graph changes.
+     */
+    public Context useBitArena(boolean useBitArena){
+        this.useBitArena = useBitArena;
+        return this;
+    }
+
+    public boolean usesBitArena(){
+        return useBitArena;
+    }
+
+    private String minCutAlgorithm = MinCut.AUTO;
+
+    /**
+     * Use the registered min cut algorithm with the passed name, see {@link MinCut#algorithms()}.
+     * The selection only affects this context (and its forks), contexts that are analyzed
+     * concurrently can use different algorithms
+     */
+    public Context minCutAlgorithm(String name){
+        MinCut.algorithm(name);
+        this.minCutAlgorithm = name;
+        return this;
+    }
+
+    public String minCutAlgorithm(){
+        return minCutAlgorithm;
+    }
+
+    private int leakageParallelism = 1;
+
+    /**
+     * Number of threads that compute the leakages of the different security levels,
+     * the levels are computed sequentially if it is one or if the lattice has at most two levels
+     * (there is then only a single level besides the top level)
+     */
+    public Context leakageParallelism(int parallelism){
+        this.leakageParallelism = parallelism;
+        return this;
+    }
+
+    public int leakageParallelism(){
+        return leakageParallelism;
+    }
+
+    private boolean incrementalLeakage = true;
+
+    /**
+     * Compute the leakages of all levels on a single flow network, see {@link MinCut.IncrementalLevels},
+     * only used with algorithms that support it
+     */
+    public Context incrementalLeakage(boolean incremental){
+        this.incrementalLeakage = incremental;
+        return this;
+    }
+
+    public boolean incrementalLeakage(){
+        return incrementalLeakage;
+    }
+
+    private boolean reduceBitGraph = true;
+
+    /**
+     * Reduce the bit graph before the flow based algorithms run, see {@link ArenaReduction}
+     */
+    public Context reduceBitGraph(boolean reduce){
+        this.reduceBitGraph = reduce;
+        return this;
+    }
+
+    public boolean reducesBitGraph(){
+        return reduceBitGraph;
+    }
+
+    /**
+     * Number of evaluations of a node before its new values are merged into its old value
+     */
+    public Context unrollCount(int unrollCount){
+        this.unrollCount = unrollCount;
+        return this;
+    }
+
+    public int unrollCount(){
+        return unrollCount;
+    }
+
+    private boolean memoizeEvaluations = true;
+
+    /**
+     * Skip the evaluation of nodes whose argument bits did not change since the last evaluation
+     */
+    public Context memoizeEvaluations(boolean memoize){
+        this.memoizeEvaluations = memoize;
+        return this;
+    }
+
+    public boolean memoizesEvaluations(){
+        return memoizeEvaluations;
+    }
+
+    /**
+     * Returns the arena for all bits that are reachable from the output bits, it is recreated
+     * after the bit graph changed (merges, new input or output values and weight changes)
+     */
+    public synchronized BitArena bitArena(){
+        if (bitArena == null){
+            bitArena = BitArena.create(output.getBits().stream().map(p -> p.second).collect(Collectors.toList()),
+                    b -> !isInputBit(b), this::weight);
+        }
+        return bitArena;
+    }
+
+
+    private final Map<Sec<?>, BitArena.PruningStatistics> pruningStatistics = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Returns the part of the bit graph that is relevant for the leakage to an attacker of the passed level:
+     * all bits that lie on a path from an output bit visible to the attacker to a secret input bit
+     */
+    public BitArena leakageCore(Sec<?> sec){
+        BitArena core = leakageCore(sources(sec), sinks(sec));
+        pruningStatistics.put(sec, core.pruningStatistics());
+        log(() -> String.format("Leakage core for level %s: %s", sec, core));
+        return core;
+    }
+
+    /**
+     * Returns the part of the bit graph that is relevant for the leakage to any attacker level:
+     * all bits that lie on a path from an output bit to a secret input bit. The pruning statistics
+     * are recorded for every level, as all levels use this core.
+     */
+    public BitArena leakageCore(){
+        BitArena core = leakageCore(sources(sl.top()), sinks(sl.bot()));
+        sl.elements().stream().filter(s -> s != sl.top())
+                .forEach(s -> pruningStatistics.put((Sec<?>) s, core.pruningStatistics()));
+        log(() -> String.format("Leakage core for all levels: %s", core));
+        return core;
+    }
+
+    private BitArena leakageCore(Set<Bit> sources, Set<Bit> sinks){
+        BitArena arena = useBitArena ? bitArena() : BitArena.create(sources, b -> !sinks.contains(b), this::weight);
+        return arena.prune(sources, sinks);
+    }
+
+    /**
+     * Statistics of the last pruning per attacker level, see {@link #leakageCore(Sec)}
+     */
+    public Map<Sec<?>, BitArena.PruningStatistics> pruningStatistics(){
+        return Collections.unmodifiableMap(pruningStatistics);
+    }
+
+    /**
+     * Drops the arena and the leakages that were computed for the previous bit graph
+     */
+    private void bitGraphChanged(){
+        bitArena = null;
+        leaks = null;
+    }
 
     public Map<Sec<?>, MinCut.ComputationResult> computeLeakage(){
         if (leaks == null){
@@ -465,33 +928,47 @@ public class Context {
         return leaks;
     }
 
-    private int c1(Bit bit){
-        Queue<Bit> q = new ArrayDeque<>();
-        Set<Bit> alreadyVisitedBits = new HashSet<>();
-        q.add(bit);
-        Set<Bit> anchors = new HashSet<>();
-        while (!q.isEmpty()) {
-        	Bit cur = q.poll();
-        	if ((!currentCallPath.isEmpty() && methodParameterBits.peek().contains(cur)) ||
-        			isInputBit(cur) && sec(cur) != sl.bot()) {
-        		anchors.add(cur);
-        	} else {
-        	cur.deps().stream().filter(Bit::isUnknown).filter(b -> {
-                if (alreadyVisitedBits.contains(b)) {
-                    return false;
-                }
-                alreadyVisitedBits.add(b);
-                return true;
-            }).forEach(q::offer);
-        	}
+    /**
+     * Does an attacker of the passed level learn at least {@code k} bits? The min cut computation stops
+     * as soon as this is decided, which is far cheaper than {@link #computeLeakage()} for small {@code k}.
+     */
+    public boolean leaksAtLeast(Sec<?> sec, int k){
+        if (k <= 0){
+            return true;
+        }
+        if (leaks != null){
+            return leaks.get(sec).maxFlow >= k;
         }
-        return anchors.size();
+        return MinCut.compute(this, sec, k).maxFlow >= k;
+    }
+
+    /**
+     * Does an attacker of the passed level learn at most {@code k} bits?
+     *
+     * @see #leaksAtLeast(Sec, int)
+     */
+    public boolean leaksAtMost(Sec<?> sec, int k){
+        return k == Integer.MAX_VALUE || !leaksAtLeast(sec, k + 1);
+    }
+
+    /**
+     * Number of anchor bits (parameter bits or secret input bits) that the bit depends on,
+     * stops counting at the limit
+     */
+    private int c1(Bit bit, int limit){
+        return BitTraversal.get().countReachableTargets(bit, cur ->
+                (!currentCallPath.isEmpty() && methodParameterBits.peek().contains(cur)) ||
+                        isInputBit(cur) && sec(cur) != sl.bot(), limit);
     }
 
     /* -------------------------- extended mode specific -------------------------------*/
     
     public Bit choose(Bit a, Bit b){
-        if (c1(a) <= c1(b) || a.isConstant()){
+        if (a.isConstant()){
+            return a;
+        }
+        int c1a = c1(a, Integer.MAX_VALUE);
+        if (c1a == 0 || c1(b, c1a) >= c1a){
             return a;
         }
         return b;
@@ -530,11 +1007,19 @@ public class Context {
     }
 
     public void repl(Bit bit, ModsCreator modsCreator){
-        replMap.put(bit, modsCreator);
+        bitMetadata.repl(bit, modsCreator);
     }
     
     public void removeRepl(Bit bit) {
-    	replMap.remove(bit);
+    	bitMetadata.repl(bit, null);
+    }
+
+    /**
+     * Has a repl function been assigned to the bit? This is the case for bits that are reused
+     * from the hash-consing table
+     */
+    public boolean hasRepl(Bit bit){
+        return bitMetadata.repl(bit) != null;
     }
 
     /**
@@ -547,7 +1032,8 @@ public class Context {
     }
 
     public ModsCreator repl(Bit bit){
-        return replMap.get(bit);
+        ModsCreator modsCreator = bitMetadata.repl(bit);
+        return modsCreator == null ? defaultModsCreator : modsCreator;
     }
 
     public void addMods(SDGNode condNode, Bit condBit){
@@ -563,7 +1049,7 @@ public class Context {
     			if (nodeValueState.modsMap.containsKey(affCond)) {
     				mods = Mods.empty().add(nodeValueState.modsMap.get(affCond)).merge(mods);
     			}
-    			nodeValueState.modsMap.put(affCond, mods);
+    			writableNodeValueState().modsMap.put(affCond, mods);
     		}
     	}
     }
@@ -571,20 +1057,19 @@ public class Context {
     /* -------------------------- loop mode specific -------------------------------*/
 
     public int weight(Bit bit){
-        return weightMap.getOrDefault(bit, 1);
+        return bitMetadata.hasInfiniteWeight(bit) ? INFTY : 1;
     }
 
     public void weight(Bit bit, int weight){
         assert weight == 1 || weight == INFTY;
-        if (weight == 1){
-        	weightMap.remove(bit, weight);
-            return;
+        if (bitMetadata.hasInfiniteWeight(bit) != (weight == INFTY)){
+            bitMetadata.infiniteWeight(bit, weight == INFTY);
+            bitGraphChanged();
         }
-        weightMap.put(bit, weight);
     }
 
     public boolean hasInfiniteWeight(Bit bit){
-        return weight(bit) == INFTY;
+        return bitMetadata.hasInfiniteWeight(bit);
     }
 
     /**
@@ -603,9 +1088,10 @@ public class Context {
         }
         o.addDependencies(d(n));
         if (oldDepsCount == o.deps().size() && !somethingChanged){
-        	replMap.remove(n);
+        	removeReplIfUnshared(n);
             return false;
         }
+        bitGraphChanged();
         ModsCreator oModsCreator = repl(o);
         ModsCreator nModsCreator = repl(n);
         repl(o, (c, b, a) -> {
@@ -613,9 +1099,18 @@ public class Context {
             Mods nMods = nModsCreator.apply(c, b, a);
             return Mods.empty().add(oMods).merge(nMods);
         });
-        replMap.remove(n);
+        removeReplIfUnshared(n);
         return true;
     }
+
+    /**
+     * Removes the repl function of the bit, unless it is shared via the hash-consing table
+     */
+    private void removeReplIfUnshared(Bit bit){
+        if (bitTable == null || !bitTable.isShared(bit)){
+            removeRepl(bit);
+        }
+    }
     
     /**
      * merges n into o
@@ -632,6 +1127,7 @@ public class Context {
     	for (; i <= newValue.size(); i++){
     		oldValue.add(newValue.get(i));
     		somethingChanged = true;
+    		bitGraphChanged();
     	}
         return somethingChanged;
     }
@@ -694,11 +1190,14 @@ public class Context {
     }
 
     public int numberOfinfiniteWeightNodes(){
-        return weightMap.size();
+        return bitMetadata.numberOfInfiniteWeightBits();
     }
 
     public void resetNodeValueStates(){
         nodeValueStates.clear();
+        if (bitTable != null){
+            bitTable.clear();
+        }
         nodeValueState = nodeValueStates.get(currentCallPath);
     }
 
@@ -820,14 +1319,14 @@ public class Context {
 	 */
 	public void workList(SDGNode entryNode, Predicate<SDGNode> nodeConsumer,
 			NextBlockFilter nextBlockFilter) {
-		program.workList(entryNode, n -> {
+		bitIdAllocator.runBound(() -> program.workList(entryNode, n -> {
 			if (isOutputCall(n)) {
 				handleOutputCall(n);
 				return false;
 			} else {
 				return nodeConsumer.test(n);
 			}
-		}, nextBlockFilter);
+		}, nextBlockFilter));
 	}
 	
 	public void registerLeakageGraphs() {
@@ -842,130 +1341,8 @@ public class Context {
 		DotRegistry.get().storeFiles();
 	}
 	
-	/**
-	 * Returns the operator for the passed node or {@code null} if the node can be ignored.
-	 * @param node
-	 * @return
-	 */
-	Operator operatorForNodeNotCached(SDGNode node) {
-       	if (node.getLabel().equals("return")) {
-    		return null;
-    	}
-       	Box<Operator> op = new Box<>(null);
-       	//System.err.println(node.getLabel());
-       	//program.getProcIR(node).getPD
-       	SSAInstruction instr = program.getInstruction(node);
-       	instr.visit(new Visitor() {
-       		@Override
-       		public void visitBinaryOp(SSABinaryOpInstruction instruction) {
-       			IOperator wop = instruction.getOperator();
-       			if (wop instanceof IShiftInstruction.Operator) {
-       				switch ((IShiftInstruction.Operator)wop) {
-       				case SHL:
-       					op.val = Operator.LEFT_SHIFT;
-       					break;
-       				case SHR:
-       					op.val = Operator.RIGHT_SHIFT;
-       					break;
-       				}
-       				return;
-       			}
-       			switch ((IBinaryOpInstruction.Operator)wop) {
-				case OR:
-					op.val = Operator.OR;
-					break;
-				case ADD:
-					op.val = Operator.ADD;
-					break;
-				case AND:
-					op.val = Operator.AND;
-					break;
-				case DIV:
-					op.val = Operator.DIVIDE;
-					break;
-				case MUL:
-					op.val = Operator.MULTIPLY;
-					break;
-				case REM:
-					op.val = Operator.MODULO;
-					break;
-				case SUB:
-					op.val = new Operator() {
-						
-						public Value compute(Context c, SDGNode node, java.util.List<Value> arguments) {
-							Value negated = Operator.NOT.compute(c, node, Collections.singletonList(arguments.get(1)));
-							Value addMinusOne = Operator.ADD.compute(c, node, 
-									Arrays.asList(arguments.get(0), negated));
-							return Operator.ADD.compute(c, node, 
-									Arrays.asList(addMinusOne, vl.parse(1)));
-						}
-						
-						@Override
-						public String toString(List<Value> arguments) {
-							return String.format("(%s - %s)", arguments.get(0), arguments.get(1));
-						}
-					};
-					break;
-				case XOR:
-					op.val = Operator.XOR;
-					break;
-				default:
-					break;
-				}
-       		}       	
-       		
-       		@Override
-       		public void visitUnaryOp(SSAUnaryOpInstruction instruction) {
-       			switch ((IUnaryOpInstruction.Operator)instruction.getOpcode()) {
-       			case NEG:
-       				op.val = Operator.NOT;
-       			}
-       		}
-       		
-       		@Override
-       		public void visitConditionalBranch(SSAConditionalBranchInstruction instruction) {
-       			switch ((IConditionalBranchInstruction.Operator)instruction.getOperator()) {
-				case EQ:
-					op.val = Operator.EQUALS;
-					break;
-				case GE:
-					// → x >= y ? C1 : C2 === x < y ? C2 : C1
-					op.val = Operator.negate(Operator.LESS);
-					break;
-				case GT:
-					op.val = Operator.reverseArguments(Operator.LESS);
-					break;
-				case LE:
-					op.val = Operator.reverseArguments(Operator.negate(Operator.LESS));
-					break;
-				case LT:
-					op.val = Operator.LESS;
-					break;
-				case NE:
-					op.val = Operator.UNEQUALS;
-					break;
-				}
-       		}
-       		
-       		@Override
-       		public void visitPhi(SSAPhiInstruction instruction) {
-       			op.val = Operator.PHI_GENERIC;
-       		}
-       		
-       		@Override
-       		public void visitReturn(SSAReturnInstruction instruction) {
-       			op.val = Operator.RETURN;
-       		}
-       	});
-       	//System.err.println(instr);
-        if (op.val == null){
-            throw new NildumuException(String.format("No operator for %s implemented", Program.toString(node)));
-        }
-        return op.val;
-	}
-	
 	public void fixPointIteration(SDGNode entryNode) {
-		new FixpointIteration(entryNode).run();
+		bitIdAllocator.runBound(() -> new FixpointIteration(entryNode).run());
 	}
 	
 	private class FixpointIteration extends Visitor {
@@ -1026,8 +1403,8 @@ public class Context {
 			if (instr == null) {
 				return false;
 			}
-			Operator op = operatorForNodeNotCached(node);
-			return !(op == Operator.EQUALS || op == Operator.UNEQUALS || op == Operator.LESS);
+			Operator op = operatorForNode(node);
+			return !(op == Operator.EQUALS || op == Operator.UNEQUALS || op instanceof Operator.Comparator);
 		}
 		
 		private boolean isLogicalOpOrPhi(SDGNode node) {
@@ -1035,7 +1412,7 @@ public class Context {
 			if (instr == null) {
 				return false;
 			}
-			Operator op = operatorForNodeNotCached(node);
+			Operator op = operatorForNode(node);
 			return op == Operator.PHI_GENERIC || op == Operator.AND || op == Operator.NOT || op == Operator.OR || op == Operator.XOR;
 		}
 
@@ -12,6 +12,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -219,6 +220,60 @@ public class Dominators<T> {
         return worklist(rootNode, action, bot, next, loopDepths::get, state);
     }
 
+    /**
+     * Strongly connected components of the nodes that are reachable from the root node
+     * (Tarjan's algorithm), a component is returned after all components that it has edges to
+     */
+    public List<Set<Node<T>>> stronglyConnectedComponents(){
+        List<Set<Node<T>>> components = new ArrayList<>();
+        Map<Node<T>, Integer> indexes = new HashMap<>();
+        Map<Node<T>, Integer> lowLinks = new HashMap<>();
+        Set<Node<T>> onStack = new HashSet<>();
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        // explicit call stack of the depth first search, with the remaining out nodes of each node
+        ArrayDeque<Node<T>> callStack = new ArrayDeque<>();
+        ArrayDeque<Iterator<Node<T>>> remainingOuts = new ArrayDeque<>();
+        Consumer<Node<T>> enter = n -> {
+            indexes.put(n, indexes.size());
+            lowLinks.put(n, indexes.get(n));
+            stack.push(n);
+            onStack.add(n);
+            callStack.push(n);
+            remainingOuts.push(n.outs.iterator());
+        };
+        enter.accept(rootNode);
+        while (!callStack.isEmpty()) {
+            Node<T> n = callStack.peek();
+            Iterator<Node<T>> outs = remainingOuts.peek();
+            if (outs.hasNext()) {
+                Node<T> out = outs.next();
+                if (!indexes.containsKey(out)) {
+                    enter.accept(out);
+                } else if (onStack.contains(out)) {
+                    lowLinks.put(n, Math.min(lowLinks.get(n), indexes.get(out)));
+                }
+                continue;
+            }
+            callStack.pop();
+            remainingOuts.pop();
+            if (lowLinks.get(n).equals(indexes.get(n))) {
+                Set<Node<T>> component = new LinkedHashSet<>();
+                Node<T> member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != n);
+                components.add(component);
+            }
+            if (!callStack.isEmpty()) {
+                Node<T> caller = callStack.peek();
+                lowLinks.put(caller, Math.min(lowLinks.get(caller), lowLinks.get(n)));
+            }
+        }
+        return components;
+    }
+
     public Set<T> dominators(T elem){
         return dominators.get(elemToNode.get(elem)).stream().filter(n -> n.elem != null).map(Node<T>::getElem).collect(Collectors.toSet());
     }
@@ -155,7 +155,7 @@ public class DotRegistry {
      *
      * <b>Does not create any files, the svg file is created lazily</b>
      */
-    public void store(String topic, String name, Supplier<Supplier<Graph>> graphCreator){
+    public synchronized void store(String topic, String name, Supplier<Supplier<Graph>> graphCreator){
         if (enabled){
             Path topicPath = tmpDir.resolve(topic);
             if (!filesPerTopic.containsKey(topic)){
@@ -212,6 +212,8 @@ public class DotRegistry {
                                        Function<Bit, List<Attributes>> nodeAttributes){
         List<MutableNode> nodeList = new ArrayList<>();
         Set<Bit> alreadyVisited = new HashSet<>();
+        // bit numbers are only unique per allocator, therefore the node ids are assigned per graph
+        Map<Bit, String> nodeIds = new DefaultMap<>((map, b) -> "b" + map.size());
         Function<Bit, Attributes> dotLabel = b -> {
             List<String> parts = new ArrayList<>();
             if (context.weight(b) == INFTY){
@@ -222,7 +224,7 @@ public class DotRegistry {
             return Records.of((String[])parts.toArray(new String[0]));
         };
         Map<Bit, MutableNode> nodes = new DefaultMap<>((map, b) -> {
-            MutableNode node = mutNode(b.bitNo + "");
+            MutableNode node = mutNode(nodeIds.get(b));
             node.add(dotLabel.apply(b));
             node.add(nodeAttributes.apply(b).toArray(new Attributes[0]));
             node.add(attr("font-family", "Helvetica"));
@@ -232,8 +234,8 @@ public class DotRegistry {
         });
         for (Bit bit : botAnchor.value) {
             bl.walkBits(bit, b -> {
-                nodes.get(b).addLink((String[])b.deps().stream().sorted(Comparator.comparingLong(d -> d.bitNo)).map(d -> d.bitNo + "").toArray(String[]::new));
-            }, b -> false, alreadyVisited, b -> b.deps().stream().sorted(Comparator.comparingLong(d -> d.bitNo)).collect(Collectors.toList()));
+                nodes.get(b).addLink((String[])b.deps().stream().sorted(Comparator.comparingInt(d -> d.bitNo)).map(nodeIds::get).toArray(String[]::new));
+            }, b -> false, alreadyVisited, b -> b.deps().stream().sorted(Comparator.comparingInt(d -> d.bitNo)).collect(Collectors.toList()));
         }
         topAnchors.stream().sorted(Comparator.comparing(s -> s.name)).forEach(anchor -> {
             Lattices.Value val = anchor.value;
@@ -0,0 +1,441 @@
+package edu.kit.nildumu;
+
+import java.util.Arrays;
+
+/**
+ * Flow network with {@code long} capacities that is stored in CSR (compressed sparse row) int arrays.
+ * <p/>
+ * Every edge is stored as a pair of arcs (the edge and its reverse edge), the arcs of vertex {@code v}
+ * are {@code start[v]} to {@code start[v + 1] - 1}. The network stores the residual capacities, the
+ * maximum flow is computed with Dinic's algorithm or with bounded breadth first augmentations.
+ * <p/>
+ * The capacities of edges can be changed after a flow has been computed, the flow is then repaired
+ * and further augmentations start with it, see {@link #setCapacity(int, long)}.
+ */
+public class FlowNetwork {
+
+    /**
+     * Capacity of edges that cannot be cut, flows that reach it are infinite
+     */
+    public static final long INFINITE_CAPACITY = Long.MAX_VALUE / 4;
+
+    public final int source;
+    public final int sink;
+
+    private final int[] start;
+
+    /**
+     * Target vertex of each arc
+     */
+    private final int[] head;
+
+    /**
+     * Index of the reverse arc of each arc
+     */
+    private final int[] rev;
+
+    private final long[] capacity;
+
+    /**
+     * Residual capacity of each arc
+     */
+    private final long[] residual;
+
+    /**
+     * Forward arc of each edge
+     */
+    private final int[] edgeArcs;
+
+    private long flow = 0;
+
+    private FlowNetwork(int source, int sink, int[] start, int[] head, int[] rev, long[] capacity, int[] edgeArcs) {
+        this.source = source;
+        this.sink = sink;
+        this.start = start;
+        this.head = head;
+        this.rev = rev;
+        this.capacity = capacity;
+        this.edgeArcs = edgeArcs;
+        this.residual = capacity.clone();
+    }
+
+    /**
+     * Collects the edges of a network, the edges are numbered in the order of their addition
+     */
+    public static class Builder {
+
+        private final int vertices;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private long[] capacity = new long[16];
+        private int edges = 0;
+
+        public Builder(int vertices) {
+            this.vertices = vertices;
+        }
+
+        /**
+         * Number of the edge that is added next
+         */
+        public int nextEdge() {
+            return edges;
+        }
+
+        public Builder addEdge(int from, int to, long capacity) {
+            if (edges == this.from.length) {
+                this.from = Arrays.copyOf(this.from, edges * 2);
+                this.to = Arrays.copyOf(this.to, edges * 2);
+                this.capacity = Arrays.copyOf(this.capacity, edges * 2);
+            }
+            this.from[edges] = from;
+            this.to[edges] = to;
+            this.capacity[edges] = Math.min(capacity, INFINITE_CAPACITY);
+            edges++;
+            return this;
+        }
+
+        public FlowNetwork build(int source, int sink) {
+            int[] start = new int[vertices + 1];
+            for (int i = 0; i < edges; i++) {
+                start[from[i] + 1]++;
+                start[to[i] + 1]++;
+            }
+            for (int v = 0; v < vertices; v++) {
+                start[v + 1] += start[v];
+            }
+            int[] pos = Arrays.copyOf(start, vertices);
+            int[] head = new int[edges * 2];
+            int[] rev = new int[edges * 2];
+            long[] caps = new long[edges * 2];
+            int[] edgeArcs = new int[edges];
+            for (int i = 0; i < edges; i++) {
+                int forward = pos[from[i]]++;
+                int backward = pos[to[i]]++;
+                head[forward] = to[i];
+                head[backward] = from[i];
+                caps[forward] = capacity[i];
+                rev[forward] = backward;
+                rev[backward] = forward;
+                edgeArcs[i] = forward;
+            }
+            return new FlowNetwork(source, sink, start, head, rev, caps, edgeArcs);
+        }
+    }
+
+    /**
+     * Creates the network for the min vertex cut between the sources and the sinks in the arena,
+     * using the transformation of S. Even (Graph Algorithms p. 122): every bit {@code i} is split into
+     * the vertices {@link #inVertex(int)} and {@link #outVertex(int)}, connected by an edge with the
+     * weight of the bit. The dependencies of sinks are omitted.
+     * <p/>
+     * Use {@link ArenaReduction} to create a smaller network with the same maximum flow.
+     *
+     * @param sources indexes of the source bits in the arena
+     * @param sinks indexes of the sink bits in the arena
+     */
+    public static FlowNetwork splitVertices(BitArena arena, int[] sources, int[] sinks) {
+        return new ArenaReduction(arena, sources, sinks, false).network();
+    }
+
+    /**
+     * Vertex that the incoming edges of the bit with the passed arena index end at
+     */
+    public static int inVertex(int index) {
+        return 2 * index;
+    }
+
+    /**
+     * Vertex that the outgoing edges of the bit with the passed arena index start at
+     */
+    public static int outVertex(int index) {
+        return 2 * index + 1;
+    }
+
+    public int numberOfVertices() {
+        return start.length - 1;
+    }
+
+    public int numberOfEdges() {
+        return head.length / 2;
+    }
+
+    /**
+     * Value of the current flow, {@link #INFINITE_CAPACITY} if it is infinite
+     */
+    public long flow() {
+        return flow;
+    }
+
+    public boolean hasInfiniteFlow() {
+        return flow >= INFINITE_CAPACITY;
+    }
+
+    /**
+     * Removes the flow
+     */
+    public void reset() {
+        System.arraycopy(capacity, 0, residual, 0, residual.length);
+        flow = 0;
+    }
+
+    public long capacity(int edge) {
+        return capacity[edgeArcs[edge]];
+    }
+
+    /**
+     * Flow on the edge
+     */
+    public long flow(int edge) {
+        int arc = edgeArcs[edge];
+        return capacity[arc] - residual[arc];
+    }
+
+    /**
+     * Changes the capacity of the edge, keeping as much of the current flow as possible.
+     * <p/>
+     * If the new capacity is lower than the flow on the edge, the surplus flow is rerouted from the tail
+     * of the edge to its head. The rest is sent back from the tail to the source and the missing flow at
+     * the head is taken from the sink. The current
+     * flow stays valid (but is not necessarily maximal), {@link #maxFlow()} and {@link #augmentingPaths(long)}
+     * continue with it.
+     */
+    public void setCapacity(int edge, long capacity) {
+        capacity = Math.min(capacity, INFINITE_CAPACITY);
+        int arc = edgeArcs[edge];
+        if (hasInfiniteFlow()) {
+            // the flow values are saturated and cannot be repaired
+            this.capacity[arc] = capacity;
+            reset();
+            return;
+        }
+        long edgeFlow = flow(edge);
+        this.capacity[arc] = capacity;
+        if (edgeFlow <= capacity) {
+            residual[arc] = capacity - edgeFlow;
+            return;
+        }
+        long surplus = edgeFlow - capacity;
+        residual[arc] = 0;
+        residual[rev[arc]] -= surplus;
+        int tail = head[rev[arc]];
+        surplus -= moveFlow(tail, head[arc], surplus);
+        if ((tail != source && moveFlow(tail, source, surplus) < surplus) ||
+                (head[arc] != sink && moveFlow(sink, head[arc], surplus) < surplus)) {
+            throw new IllegalStateException("Cannot repair the flow, the network is inconsistent");
+        }
+        flow -= surplus;
+    }
+
+    /**
+     * Moves up to the passed amount of flow along paths in the residual network from one vertex to another
+     *
+     * @return moved amount of flow
+     */
+    private long moveFlow(int from, int to, long amount) {
+        int n = numberOfVertices();
+        int[] predecessor = new int[n];
+        int[] visited = new int[n];
+        int[] queue = new int[n];
+        long moved = 0;
+        for (int epoch = 1; moved < amount && shortestPath(from, to, predecessor, visited, queue, epoch); epoch++) {
+            moved += augment(from, to, predecessor, amount - moved);
+        }
+        return moved;
+    }
+
+    /**
+     * Computes the maximum flow with Dinic's algorithm, starting with the current flow
+     *
+     * @return value of the maximum flow, {@link #INFINITE_CAPACITY} if it is infinite
+     */
+    public long maxFlow() {
+        return maxFlow(INFINITE_CAPACITY);
+    }
+
+    /**
+     * Runs the phases of Dinic's algorithm until the flow reaches the limit or is maximal
+     *
+     * @return value of the flow, at least {@code limit} if the computation stopped early
+     */
+    public long maxFlow(long limit) {
+        int n = numberOfVertices();
+        int[] level = new int[n];
+        int[] queue = new int[n];
+        int[] current = new int[n];
+        int[] path = new int[n];
+        while (flow < limit && !hasInfiniteFlow() && levelGraph(level, queue)) {
+            System.arraycopy(start, 0, current, 0, n);
+            blockingFlow(level, current, path);
+        }
+        return flow;
+    }
+
+    /**
+     * Augments along shortest paths (found by breadth first searches that stop at the sink) until the
+     * flow reaches the limit or the sink is no longer reachable.
+     * <p/>
+     * Every augmentation increases the flow by at least one, so at most {@code limit} searches are
+     * needed. This is far faster than {@link #maxFlow()} if the limit is small compared to the size of
+     * the network, e.g. when it is the number of output bits.
+     *
+     * @return value of the flow, at least {@code limit} if the search stopped early
+     */
+    public long augmentingPaths(long limit) {
+        int n = numberOfVertices();
+        int[] predecessor = new int[n];
+        int[] visited = new int[n];
+        int[] queue = new int[n];
+        for (int epoch = 1; flow < limit && !hasInfiniteFlow(); epoch++) {
+            if (!shortestPath(source, sink, predecessor, visited, queue, epoch)) {
+                break;
+            }
+            flow = Math.min(flow + augment(source, sink, predecessor, INFINITE_CAPACITY), INFINITE_CAPACITY);
+        }
+        return flow;
+    }
+
+    /**
+     * Breadth first search in the residual network that stops when it reaches the target,
+     * the visited vertices are marked with the epoch
+     *
+     * @param predecessor arc via which each visited vertex was reached
+     * @return is the target reachable?
+     */
+    private boolean shortestPath(int from, int to, int[] predecessor, int[] visited, int[] queue, int epoch) {
+        visited[from] = epoch;
+        queue[0] = from;
+        int queueEnd = 1;
+        for (int q = 0; q < queueEnd && visited[to] != epoch; q++) {
+            int v = queue[q];
+            for (int a = start[v]; a < start[v + 1]; a++) {
+                int w = head[a];
+                if (residual[a] > 0 && visited[w] != epoch) {
+                    visited[w] = epoch;
+                    predecessor[w] = a;
+                    queue[queueEnd++] = w;
+                }
+            }
+        }
+        return visited[to] == epoch;
+    }
+
+    /**
+     * Sends flow along the path found by {@link #shortestPath(int, int, int[], int[], int[], int)}
+     *
+     * @param limit maximum amount of flow
+     * @return sent amount of flow
+     */
+    private long augment(int from, int to, int[] predecessor, long limit) {
+        long bottleneck = limit;
+        for (int v = to; v != from; v = head[rev[predecessor[v]]]) {
+            bottleneck = Math.min(bottleneck, residual[predecessor[v]]);
+        }
+        for (int v = to; v != from; v = head[rev[predecessor[v]]]) {
+            residual[predecessor[v]] -= bottleneck;
+            residual[rev[predecessor[v]]] += bottleneck;
+        }
+        return bottleneck;
+    }
+
+    /**
+     * Computes the BFS levels in the residual network
+     *
+     * @return is the sink reachable?
+     */
+    private boolean levelGraph(int[] level, int[] queue) {
+        Arrays.fill(level, -1);
+        level[source] = 0;
+        queue[0] = source;
+        int queueEnd = 1;
+        for (int q = 0; q < queueEnd; q++) {
+            int v = queue[q];
+            for (int a = start[v]; a < start[v + 1]; a++) {
+                if (residual[a] > 0 && level[head[a]] == -1) {
+                    level[head[a]] = level[v] + 1;
+                    queue[queueEnd++] = head[a];
+                }
+            }
+        }
+        return level[sink] != -1;
+    }
+
+    /**
+     * Augments along shortest paths until the sink is no longer reachable in the level graph,
+     * the depth first search is iterative, as the paths might be long
+     */
+    private void blockingFlow(int[] level, int[] current, int[] path) {
+        int pathLength = 0;
+        int v = source;
+        while (true) {
+            if (v == sink) {
+                long bottleneck = INFINITE_CAPACITY;
+                for (int i = 0; i < pathLength; i++) {
+                    bottleneck = Math.min(bottleneck, residual[path[i]]);
+                }
+                int firstSaturated = -1;
+                for (int i = 0; i < pathLength; i++) {
+                    int a = path[i];
+                    residual[a] -= bottleneck;
+                    residual[rev[a]] += bottleneck;
+                    if (residual[a] == 0 && firstSaturated == -1) {
+                        firstSaturated = i;
+                    }
+                }
+                flow = Math.min(flow + bottleneck, INFINITE_CAPACITY);
+                if (hasInfiniteFlow()) {
+                    return;
+                }
+                // retreat to the tail of the first saturated arc
+                pathLength = firstSaturated;
+                v = pathLength == 0 ? source : head[path[pathLength - 1]];
+                continue;
+            }
+            int a = current[v];
+            while (a < start[v + 1] && (residual[a] == 0 || level[head[a]] != level[v] + 1)) {
+                a++;
+            }
+            current[v] = a;
+            if (a < start[v + 1]) {
+                path[pathLength++] = a;
+                v = head[a];
+                continue;
+            }
+            // dead end
+            level[v] = -1;
+            if (v == source) {
+                return;
+            }
+            pathLength--;
+            v = pathLength == 0 ? source : head[path[pathLength - 1]];
+            current[v]++;
+        }
+    }
+
+    /**
+     * Returns the vertices that are reachable from the source in the residual network,
+     * they form the source side of a minimum cut if the flow is maximal
+     */
+    public boolean[] residualReachable() {
+        int n = numberOfVertices();
+        boolean[] reachable = new boolean[n];
+        int[] queue = new int[n];
+        int queueEnd = 0;
+        reachable[source] = true;
+        queue[queueEnd++] = source;
+        for (int q = 0; q < queueEnd; q++) {
+            int v = queue[q];
+            for (int a = start[v]; a < start[v + 1]; a++) {
+                if (residual[a] > 0 && !reachable[head[a]]) {
+                    reachable[head[a]] = true;
+                    queue[queueEnd++] = head[a];
+                }
+            }
+        }
+        return reachable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlowNetwork(%d vertices, %d edges, flow %d)", numberOfVertices(), numberOfEdges(), flow);
+    }
+}
@@ -9,6 +9,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import edu.kit.nildumu.Lattices.B;
@@ -47,6 +48,18 @@ public class IOValues {
         this.bits = new LinkedHashSet<>();
     }
 
+    /**
+     * Returns a copy that can be modified independently of this instance
+     */
+    IOValues copy(){
+        IOValues copy = new IOValues();
+        valuesPerSec.forEach((s, vs) -> copy.valuesPerSec.get(s).addAll(vs));
+        copy.secPerValue.putAll(secPerValue);
+        copy.secPerBit.putAll(secPerBit);
+        copy.bits.addAll(bits);
+        return copy;
+    }
+
 
     public void add(Sec<?> sec, Value value){
         if (contains(value) && !getSec(value).equals(sec)){
@@ -66,6 +79,15 @@ public class IOValues {
         }
     }
 
+    /**
+     * Returns a copy in which each value is replaced by the mapped value
+     */
+    IOValues map(Function<Value, Value> mapper){
+        IOValues copy = new IOValues();
+        getValues().forEach(p -> copy.add(p.first, mapper.apply(p.second)));
+        return copy;
+    }
+
     public List<Pair<Sec, Value>> getValues(){
         return valuesPerSec.entrySet().stream()
                 .flatMap(e -> e.getValue().stream()
@@ -14,8 +14,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -23,13 +25,14 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -608,35 +611,238 @@ public class Lattices {
 	        DependencySet copy();
 	    }
 
-	    public static class DependencySetImpl extends HashSet<Bit> implements DependencySet {
+	    /**
+	     * Dependency set that is optimized for the common small sizes: up to four bits are stored
+	     * in fields, up to {@link #MAX_ARRAY_SIZE} bits in an array that is sorted by the bit number
+	     * and only larger sets use a hash set.
+	     */
+	    public static class DependencySetImpl extends AbstractSet<Bit> implements DependencySet {
+
+	        private static final int INLINE_SIZE = 4;
+
+	        private static final int MAX_ARRAY_SIZE = 32;
+
+	        private Bit b0, b1, b2, b3;
+
+	        /**
+	         * Used after the set outgrew the inline fields, sorted by the bit number
+	         */
+	        private Bit[] array;
+
+	        /**
+	         * Used after the set outgrew the array
+	         */
+	        private HashSet<Bit> set;
+
+	        private int size = 0;
 
 	        public DependencySetImpl(Collection<? extends Bit> c) {
-	            super(c);
+	            if (c instanceof DependencySetImpl) {
+	                DependencySetImpl other = (DependencySetImpl) c;
+	                b0 = other.b0;
+	                b1 = other.b1;
+	                b2 = other.b2;
+	                b3 = other.b3;
+	                array = other.array == null ? null : other.array.clone();
+	                set = other.set == null ? null : new HashSet<>(other.set);
+	                size = other.size;
+	            } else {
+	                c.forEach(this::add);
+	            }
 	        }
 
 	        private DependencySetImpl(Bit bit){
-	            this(Collections.singleton(bit));
+	            b0 = bit;
+	            size = 1;
+	        }
+
+	        private Bit inline(int index) {
+	            switch (index) {
+	                case 0: return b0;
+	                case 1: return b1;
+	                case 2: return b2;
+	                default: return b3;
+	            }
+	        }
+
+	        private void inline(int index, Bit bit) {
+	            switch (index) {
+	                case 0: b0 = bit; break;
+	                case 1: b1 = bit; break;
+	                case 2: b2 = bit; break;
+	                default: b3 = bit;
+	            }
+	        }
+
+	        /**
+	         * Returns the position of the bit in the array or {@code -(insertion point) - 1}
+	         */
+	        private int arrayIndexOf(Bit bit) {
+	            int low = 0;
+	            int high = size;
+	            while (low < high) {
+	                int mid = (low + high) >>> 1;
+	                if (array[mid].bitNo < bit.bitNo) {
+	                    low = mid + 1;
+	                } else {
+	                    high = mid;
+	                }
+	            }
+	            for (; low < size && array[low].bitNo == bit.bitNo; low++) {
+	                if (array[low] == bit) {
+	                    return low;
+	                }
+	            }
+	            return -low - 1;
 	        }
 
 	        @Override
 	        public boolean add(Bit bit) {
-	            return super.add(bit);
+	            if (set != null) {
+	                return set.add(bit);
+	            }
+	            if (array != null) {
+	                int index = arrayIndexOf(bit);
+	                if (index >= 0) {
+	                    return false;
+	                }
+	                if (size == MAX_ARRAY_SIZE) {
+	                    set = new HashSet<>(Arrays.asList(array).subList(0, size));
+	                    array = null;
+	                    size = 0;
+	                    return set.add(bit);
+	                }
+	                index = -index - 1;
+	                if (size == array.length) {
+	                    array = Arrays.copyOf(array, Math.min(array.length * 2, MAX_ARRAY_SIZE));
+	                }
+	                System.arraycopy(array, index, array, index + 1, size - index);
+	                array[index] = bit;
+	                size++;
+	                return true;
+	            }
+	            if (contains(bit)) {
+	                return false;
+	            }
+	            if (size < INLINE_SIZE) {
+	                inline(size++, bit);
+	                return true;
+	            }
+	            array = new Bit[INLINE_SIZE * 2];
+	            for (int i = 0; i < INLINE_SIZE; i++) {
+	                array[i] = inline(i);
+	                inline(i, null);
+	            }
+	            Arrays.sort(array, 0, INLINE_SIZE, (x, y) -> Integer.compare(x.bitNo, y.bitNo));
+	            return add(bit);
+	        }
+
+	        @Override
+	        public boolean contains(Object o) {
+	            if (set != null) {
+	                return set.contains(o);
+	            }
+	            if (!(o instanceof Bit)) {
+	                return false;
+	            }
+	            if (array != null) {
+	                return arrayIndexOf((Bit) o) >= 0;
+	            }
+	            for (int i = 0; i < size; i++) {
+	                if (inline(i) == o) {
+	                    return true;
+	                }
+	            }
+	            return false;
 	        }
 
 	        @Override
-	        public boolean retainAll(Collection<?> c) {
-	            throw new UnsupportedOperationException();
+	        public int size() {
+	            return set != null ? set.size() : size;
+	        }
+
+	        @Override
+	        public Iterator<Bit> iterator() {
+	            if (set != null) {
+	                return set.iterator();
+	            }
+	            return new Iterator<Bit>() {
+
+	                int index = 0;
+
+	                boolean canRemove = false;
+
+	                @Override
+	                public boolean hasNext() {
+	                    return index < size;
+	                }
+
+	                @Override
+	                public Bit next() {
+	                    if (index >= size) {
+	                        throw new NoSuchElementException();
+	                    }
+	                    canRemove = true;
+	                    return array != null ? array[index++] : inline(index++);
+	                }
+
+	                @Override
+	                public void remove() {
+	                    if (!canRemove) {
+	                        throw new IllegalStateException();
+	                    }
+	                    canRemove = false;
+	                    removeAt(--index);
+	                }
+	            };
 	        }
 
 	        @Override
 	        public boolean remove(Object o) {
-	            assert o instanceof Bit && ((Bit) o).val == X;
-	            return super.remove(o);
+	            if (set != null) {
+	                return set.remove(o);
+	            }
+	            if (!(o instanceof Bit)) {
+	                return false;
+	            }
+	            if (array != null) {
+	                int index = arrayIndexOf((Bit) o);
+	                if (index < 0) {
+	                    return false;
+	                }
+	                removeAt(index);
+	                return true;
+	            }
+	            for (int i = 0; i < size; i++) {
+	                if (inline(i) == o) {
+	                    removeAt(i);
+	                    return true;
+	                }
+	            }
+	            return false;
+	        }
+
+	        /**
+	         * Removes the bit at the passed position of the array or the inline fields
+	         */
+	        private void removeAt(int index) {
+	            if (array != null) {
+	                System.arraycopy(array, index + 1, array, index, size - index - 1);
+	                array[--size] = null;
+	                return;
+	            }
+	            for (int j = index; j < size - 1; j++) {
+	                inline(j, inline(j + 1));
+	            }
+	            inline(--size, null);
 	        }
 
 	        @Override
-	        public boolean removeAll(Collection<?> c) {
-	            throw new UnsupportedOperationException();
+	        public void clear() {
+	            b0 = b1 = b2 = b3 = null;
+	            array = null;
+	            set = null;
+	            size = 0;
 	        }
 
 	        @Override
@@ -662,6 +868,11 @@ public class Lattices {
 	            return (o instanceof DependencySetImpl && super.equals(o)) || (o instanceof EmptyDependencySet && this.isEmpty());
 	        }
 
+	        @Override
+	        public int hashCode() {
+	            return super.hashCode();
+	        }
+
 	        @Override
 	        public DependencySet copy() {
 	            return new DependencySetImpl(this);
@@ -800,6 +1011,34 @@ public class Lattices {
 	            return new Bit(X);
 	        }
 
+	        private static class InternedConstants {
+	            static final Bit ZERO_BIT = new Bit(ZERO, true);
+	            static final Bit ONE_BIT = new Bit(ONE, true);
+	        }
+
+	        /**
+	         * Returns the shared bit for the constant, it is never modified
+	         * and does not belong to a value
+	         */
+	        public Bit constant(B val){
+	            assert val.isConstant();
+	            return val == ONE ? InternedConstants.ONE_BIT : InternedConstants.ZERO_BIT;
+	        }
+
+	        /**
+	         * Creates a bit that is computed by the operator from the operands, returns a
+	         * structurally identical bit from the table instead if possible
+	         *
+	         * @param table hash-consing table, no bits are shared if {@code null}
+	         * @param operator object that identifies the computation (e.g. the {@link Operator})
+	         */
+	        public Bit create(BitTable table, Object operator, B val, DependencySet deps, Bit... operands) {
+	            if (table == null || val != U){
+	                return create(val, deps);
+	            }
+	            return table.create(operator, val, deps, operands);
+	        }
+
 	        @Override
 	        public Pair<Bit, Integer> parse(int start, String str, IdToElement idToElement) {
 	            while (str.charAt(start) == ' '){
@@ -824,11 +1063,14 @@ public class Lattices {
 	        }
 
 	        public void walkBits(Bit startBit, Consumer<Bit> consumer, Predicate<Bit> ignoreBit){
-	            walkBits(startBit, consumer, ignoreBit, new HashSet<>());
+	            if (ignoreBit.test(startBit)){
+	                return;
+	            }
+	            BitTraversal.get().walk(Collections.singletonList(startBit), consumer, ignoreBit);
 	        }
 
 	        public void walkBits(Bit startBit, Consumer<Bit> consumer, Predicate<Bit> ignoreBit, Set<Bit> alreadyVisitedBits){
-	            Stack<Bit> bitsToVisit = new Stack<>();
+	            Deque<Bit> bitsToVisit = new ArrayDeque<>();
 	            if (ignoreBit.test(startBit)){
 	                return;
 	            }
@@ -840,14 +1082,14 @@ public class Lattices {
 	                }
 	                consumer.accept(cur);
 	                if (!ignoreBit.test(cur)){
-	                    bitsToVisit.addAll(cur.deps);
+	                    cur.deps.forEach(bitsToVisit::push);
 	                }
 	                alreadyVisitedBits.add(cur);
 	            }
 	        }
 
 	        public void walkBits(Bit startBit, Consumer<Bit> consumer, Predicate<Bit> ignoreBit, Set<Bit> alreadyVisitedBits, Function<Bit, Collection<Bit>> next){
-	            Stack<Bit> bitsToVisit = new Stack<>();
+	            Deque<Bit> bitsToVisit = new ArrayDeque<>();
 	            if (ignoreBit.test(startBit)){
 	                return;
 	            }
@@ -859,13 +1101,126 @@ public class Lattices {
 	                }
 	                consumer.accept(cur);
 	                if (!ignoreBit.test(cur)){
-	                    bitsToVisit.addAll(next.apply(cur));
+	                    next.apply(cur).forEach(bitsToVisit::push);
 	                }
 	                alreadyVisitedBits.add(cur);
 	            }
 	        }
 	    }
 
+	    /**
+	     * Hash-consing table for unknown bits: bits that are computed by the same operator from the same
+	     * operand bits have the same value and the same dependencies, they are therefore structurally
+	     * identical and can be shared.
+	     * <p/>
+	     * A bit is only shared as long as it has not been merged into (i.e. as long as its
+	     * dependencies are unchanged). Only use it for bits that are not distinguished by their identity.
+	     */
+	    public static class BitTable {
+
+	        private static class Key {
+	            final Object operator;
+	            final B val;
+	            final Bit[] operands;
+	            final int hash;
+
+	            Key(Object operator, B val, Bit[] operands) {
+	                this.operator = operator;
+	                this.val = val;
+	                this.operands = operands;
+	                int h = System.identityHashCode(operator) * 31 + val.ordinal();
+	                for (Bit operand : operands) {
+	                    h = h * 31 + System.identityHashCode(operand);
+	                }
+	                this.hash = h;
+	            }
+
+	            @Override
+	            public int hashCode() {
+	                return hash;
+	            }
+
+	            @Override
+	            public boolean equals(Object obj) {
+	                if (!(obj instanceof Key)) {
+	                    return false;
+	                }
+	                Key other = (Key) obj;
+	                if (operator != other.operator || val != other.val || operands.length != other.operands.length) {
+	                    return false;
+	                }
+	                for (int i = 0; i < operands.length; i++) {
+	                    if (operands[i] != other.operands[i]) {
+	                        return false;
+	                    }
+	                }
+	                return true;
+	            }
+	        }
+
+	        private final Map<Key, Bit> bits = new HashMap<>();
+
+	        /**
+	         * Bits that have been returned more than once
+	         */
+	        private final Set<Bit> sharedBits = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	        private long lookups = 0;
+
+	        private long hits = 0;
+
+	        Bit create(Object operator, B val, DependencySet deps, Bit... operands) {
+	            lookups++;
+	            Key key = new Key(operator, val, operands);
+	            Bit bit = bits.get(key);
+	            // dependencies only grow, therefore equal sizes imply that the bit has not been merged into
+	            if (bit != null && bit.val == val && bit.deps.size() == deps.size()) {
+	                hits++;
+	                sharedBits.add(bit);
+	                return bit;
+	            }
+	            bit = bl.create(val, deps);
+	            bits.put(key, bit);
+	            return bit;
+	        }
+
+	        /**
+	         * Number of calls to create
+	         */
+	        public long lookups() {
+	            return lookups;
+	        }
+
+	        /**
+	         * Number of times that an existing bit has been returned
+	         */
+	        public long hits() {
+	            return hits;
+	        }
+
+	        public int size() {
+	            return bits.size();
+	        }
+
+	        /**
+	         * Has the bit been returned for more than one computation?
+	         */
+	        public boolean isShared(Bit bit) {
+	            return sharedBits.contains(bit);
+	        }
+
+	        public void clear() {
+	            bits.clear();
+	            sharedBits.clear();
+	        }
+
+	        @Override
+	        public String toString() {
+	            return String.format("hash-consing: %d lookups, %d shared (%.1f%%), %d bits in table",
+	                    lookups, hits, lookups == 0 ? 0.0 : hits * 100.0 / lookups, bits.size());
+	        }
+	    }
+
 	    /**
 	     * Parse a tuple of lattice elements
 	     */
@@ -905,29 +1260,113 @@ public class Lattices {
 	        return new Pair<>(elements, i + 1);
 	    }
 
-	    public static class Bit implements LatticeElement<Bit, BitLattice> {
+	    /**
+	     * Allocates the bit numbers of an analysis, densely starting at zero, so that they can be
+	     * used to index arrays.
+	     * <p/>
+	     * Each context creates its own allocator, the analysis entry points (e.g. {@link Program#Program(BuildResult)}
+	     * and {@link Context#fixPointIteration(SDGNode)}) bind it to the current thread. Bits that are
+	     * created in this thread use it afterwards, creating a bit in a thread without a bound allocator
+	     * is an error. Threads that create bits for a context have to bind its allocator first.
+	     */
+	    public static class BitIdAllocator {
+
+	        private static final ThreadLocal<BitIdAllocator> current = new ThreadLocal<>();
+
+	        /**
+	         * Allocator of the bits that are shared by all analyses, like the interned constant bits
+	         */
+	        public static final BitIdAllocator SHARED = new BitIdAllocator();
+
+	        private final AtomicInteger next = new AtomicInteger();
+
+	        int next(){
+	            return next.getAndIncrement();
+	        }
+
+	        /**
+	         * Number of allocated bit numbers, all bit numbers are smaller
+	         */
+	        public int numberOfAllocatedIds(){
+	            return next.get();
+	        }
 
-	        private static long NUMBER_OF_BITS = 0;
+	        /**
+	         * Calls the supplier with this allocator bound to the current thread, restores the
+	         * previously bound allocator afterwards
+	         */
+	        public <T> T callBound(Supplier<T> supplier){
+	            BitIdAllocator previous = current.get();
+	            current.set(this);
+	            try {
+	                return supplier.get();
+	            } finally {
+	                current.set(previous);
+	            }
+	        }
+
+	        /**
+	         * Runs the runnable with this allocator bound to the current thread, see {@link #callBound(Supplier)}
+	         */
+	        public void runBound(Runnable runnable){
+	            callBound(() -> {
+	                runnable.run();
+	                return null;
+	            });
+	        }
+
+	        /**
+	         * Returns the allocator bound to the current thread
+	         *
+	         * @throws NildumuException if no allocator is bound
+	         */
+	        public static BitIdAllocator current(){
+	            BitIdAllocator allocator = current.get();
+	            if (allocator == null){
+	                throw new NildumuException(String.format("No bit id allocator bound to thread %s",
+	                        Thread.currentThread().getName()));
+	            }
+	            return allocator;
+	        }
+
+	        @Override
+	        public String toString() {
+	            return String.format("BitIdAllocator(%d)", numberOfAllocatedIds());
+	        }
+	    }
+
+	    public static class Bit implements LatticeElement<Bit, BitLattice> {
 
 	        public static boolean toStringGivesBitNo = false;
 
 	        private B val;
 	        private DependencySet deps;
 	        /**
-	         * Like the identity in the thesis
+	         * Like the identity in the thesis, only unique per allocator
 	         */
-	        final long bitNo;
+	        final int bitNo;
+	        final BitIdAllocator allocator;
 	        private int valueIndex = 0;
 	        private Value value = null;
+	        /**
+	         * Shared constant bit, see {@link BitLattice#constant(B)}
+	         */
+	        private final boolean interned;
 	        /**
 	         * Store to use by analyses
 	         */
 	        Object store = null;
 
 	        public Bit(B val, DependencySet deps) {
+	            this(val, deps, false);
+	        }
+
+	        private Bit(B val, DependencySet deps, boolean interned) {
 	            this.val = val;
 	            this.deps = deps;
-	            this.bitNo = NUMBER_OF_BITS++;
+	            this.interned = interned;
+	            this.allocator = interned ? BitIdAllocator.SHARED : BitIdAllocator.current();
+	            this.bitNo = allocator.next();
 	            assert checkInvariant();
 	        }
 
@@ -935,6 +1374,17 @@ public class Lattices {
 	            this(val, val.isConstant() ? ds.empty() : ds.bot());
 	        }
 
+	        private Bit(B val, boolean interned){
+	            this(val, ds.empty(), interned);
+	        }
+
+	        /**
+	         * Is this a shared constant bit, that has to be copied before modifying it?
+	         */
+	        public boolean isInterned(){
+	            return interned;
+	        }
+
 	        @Override
 	        public String toString() {
 	            if (toStringGivesBitNo){
@@ -988,7 +1438,7 @@ public class Lattices {
 	        }
 
 	        public Bit valueIndex(int index){
-	            if (valueIndex == 0) {
+	            if (valueIndex == 0 && !interned) {
 	                valueIndex = index;
 	            }
 	            return this;
@@ -999,7 +1449,7 @@ public class Lattices {
 	        }
 
 	        public Bit value(Value value){
-	            if (this.value == null) {
+	            if (this.value == null && !interned) {
 	                this.value = value;
 	            }
 	            return this;
@@ -1013,14 +1463,6 @@ public class Lattices {
 	            return isUnknown() && !hasDependencies();
 	        }
 
-	        public static long getNumberOfCreatedBits(){
-	            return NUMBER_OF_BITS;
-	        }
-
-	        public static void resetNumberOfCreatedBits(){
-	            NUMBER_OF_BITS = 0;
-	        }
-
 	        public String uniqueId(){
 	            return bitNo + "";
 	        }
@@ -1049,6 +1491,7 @@ public class Lattices {
 
 	        public void setVal(B newVal){
 	            assert bs.greaterEqualsThan(newVal, val);
+	            assert !interned || newVal == val;
 	            this.val = newVal;
 	        }
 
@@ -1061,6 +1504,7 @@ public class Lattices {
 	        }
 
 	        public void mergeVal(B val){
+	            assert !interned || bs.sup(this.val, val) == this.val;
 	            this.val = bs.sup(this.val, val);
 	        }
 
@@ -1073,39 +1517,21 @@ public class Lattices {
 	            deps.remove(bit);
 	        }
 
+	        /**
+	         * Bits are only equal to themselves, as bit numbers are only unique per allocator
+	         */
 	        @Override
 	        public boolean equals(Object o) {
-	            if (this == o) return true;
-	            if (o == null || getClass() != o.getClass()) return false;
-	            Bit bit = (Bit) o;
-	            return bitNo == bit.bitNo;
+	            return this == o;
 	        }
 
 	        @Override
 	        public int hashCode() {
-	            return Objects.hash(bitNo);
+	            return bitNo;
 	        }
 	        
 	        public Set<Bit> calculateReachedBits(Set<Bit> bitsToReach){
-	            Queue<Bit> q = new ArrayDeque<>();
-	            Set<Bit> alreadyVisitedBits = new HashSet<>();
-	            q.add(this);
-	            Set<Bit> reachedBits = new HashSet<>();
-	            while (!q.isEmpty()) {
-	            	Bit cur = q.poll();
-	            	if (bitsToReach.contains(cur)) {
-	            		reachedBits.add(cur);
-	            	} else {
-		            	cur.deps().stream().filter(Bit::isUnknown).filter(b -> {
-		                    if (alreadyVisitedBits.contains(b)) {
-		                        return false;
-		                    }
-		                    alreadyVisitedBits.add(b);
-		                    return true;
-		                }).forEach(q::offer);
-	            	}
-	            }
-	            return reachedBits;
+	            return BitTraversal.get().reachableTargets(this, bitsToReach::contains);
 	        }
 	    }
 
@@ -1115,7 +1541,7 @@ public class Lattices {
 
 	        private static final ValueLattice lattice = new ValueLattice();
 
-	        private static final Value BOT = ValueLattice.get().parse("0bxx");
+	        private static final Value BOT = BitIdAllocator.SHARED.callBound(() -> ValueLattice.get().parse("0bxx"));
 
 	        @Deprecated
 	        @Override
@@ -1175,6 +1601,43 @@ public class Lattices {
 	            return parse(Integer.toString(val));
 	        }
 
+	        /**
+	         * Constants in this range are interned
+	         */
+	        private static final int MIN_INTERNED = -128, MAX_INTERNED = 1024;
+
+	        private final Map<Long, Value> constants = new ConcurrentHashMap<>();
+
+	        /**
+	         * Width of the values returned by {@link #constant(int)}
+	         */
+	        public int constantWidth(){
+	            return Math.min(bitWidth, Integer.SIZE);
+	        }
+
+	        /**
+	         * Returns a constant value of {@link #constantWidth()} bits (the passed value wraps around),
+	         * that consists of interned constant bits. Small values are interned themselves,
+	         * interned values are never modified.
+	         */
+	        public Value constant(int val){
+	            int width = constantWidth();
+	            int wrapped = (val << (Integer.SIZE - width)) >> (Integer.SIZE - width);
+	            if (wrapped < MIN_INTERNED || wrapped > MAX_INTERNED){
+	                return createConstant(wrapped, width, false);
+	            }
+	            return constants.computeIfAbsent(((long) width << Integer.SIZE) | (wrapped & 0xffffffffL),
+	                    k -> createConstant(wrapped, width, true));
+	        }
+
+	        private Value createConstant(int val, int width, boolean interned){
+	            List<Bit> bits = new ArrayList<>(width);
+	            for (int i = 0; i < width; i++){
+	                bits.add(bl.constant(((val >> i) & 1) == 1 ? ONE : ZERO));
+	            }
+	            return interned ? new Value(Collections.unmodifiableList(bits), true) : new Value(bits);
+	        }
+
 	        public static ValueLattice get() {
 	            return lattice;
 	        }
@@ -1205,13 +1668,128 @@ public class Lattices {
 	        }
 
 	        public void walkBits(Value value, Consumer<Bit> consumer){
-	            Set<Bit> alreadyVisited = new HashSet<>();
-	            value.forEach(b -> bl.walkBits(b, consumer, c -> false, alreadyVisited));
+	            BitTraversal.get().walk(value.bits, consumer, c -> false);
 	        }
 
 	        public void walkBits(List<Value> values, Consumer<Bit> consumer){
-	            Set<Bit> alreadyVisited = new HashSet<>();
-	            values.forEach(v -> v.forEach(b -> bl.walkBits(b, consumer, c -> false, alreadyVisited)));
+	            BitTraversal.get().walk(values.stream().flatMap(Value::stream).collect(Collectors.toList()), consumer, c -> false);
+	        }
+	    }
+
+	    /**
+	     * Packed view of the known (constant) bits of a value with at most {@link #MAX_WIDTH} bits,
+	     * like the tnums of the Linux eBPF verifier: bit {@code i - 1} of the mask is set if
+	     * the {@code i}th bit is constant, its value is the bit {@code i - 1} of value. Values are
+	     * sign extended to the width.
+	     */
+	    public static class KnownBits {
+
+	        public static final int MAX_WIDTH = 63;
+
+	        public final int width;
+
+	        public final long mask;
+
+	        public final long value;
+
+	        public KnownBits(int width, long mask, long value) {
+	            assert width <= MAX_WIDTH;
+	            this.width = width;
+	            this.mask = mask & widthMask(width);
+	            this.value = value & this.mask;
+	        }
+
+	        public static KnownBits of(Value value, int width) {
+	            long mask = 0;
+	            long val = 0;
+	            for (int i = 1; i <= width; i++) {
+	                Bit bit = value.get(i);
+	                if (bit.isConstant()) {
+	                    mask |= 1L << (i - 1);
+	                    if (bit.val == ONE) {
+	                        val |= 1L << (i - 1);
+	                    }
+	                }
+	            }
+	            return new KnownBits(width, mask, val);
+	        }
+
+	        static long widthMask(int width) {
+	            return (1L << width) - 1;
+	        }
+
+	        /**
+	         * @param i index that starts at 1
+	         */
+	        public boolean isKnown(int i) {
+	            return (mask & (1L << (i - 1))) != 0;
+	        }
+
+	        /**
+	         * Value of a known bit
+	         *
+	         * @param i index that starts at 1
+	         */
+	        public B val(int i) {
+	            assert isKnown(i);
+	            return (value & (1L << (i - 1))) != 0 ? ONE : ZERO;
+	        }
+
+	        public boolean isConstant() {
+	            return mask == widthMask(width);
+	        }
+
+	        /**
+	         * Number of known bits, starting at the least significant bit
+	         */
+	        public int knownPrefix() {
+	            return Math.min(width, Long.numberOfTrailingZeros(~mask));
+	        }
+
+	        private long signExtend(long val) {
+	            return (val << (64 - width)) >> (64 - width);
+	        }
+
+	        /**
+	         * Smallest signed value that is possible
+	         */
+	        public long min() {
+	            long signBit = 1L << (width - 1);
+	            return signExtend(value | (~mask & signBit));
+	        }
+
+	        /**
+	         * Largest signed value that is possible
+	         */
+	        public long max() {
+	            long signBit = 1L << (width - 1);
+	            return signExtend(value | (~mask & widthMask(width) & ~signBit));
+	        }
+
+	        public KnownBits and(KnownBits other) {
+	            return new KnownBits(width, (mask & other.mask) | (mask & ~value) | (other.mask & ~other.value),
+	                    value & other.value);
+	        }
+
+	        public KnownBits or(KnownBits other) {
+	            return new KnownBits(width, (mask & other.mask) | value | other.value, value | other.value);
+	        }
+
+	        public KnownBits xor(KnownBits other) {
+	            return new KnownBits(width, mask & other.mask, value ^ other.value);
+	        }
+
+	        public KnownBits not() {
+	            return new KnownBits(width, mask, ~value);
+	        }
+
+	        @Override
+	        public String toString() {
+	            StringBuilder builder = new StringBuilder();
+	            for (int i = width; i > 0; i--) {
+	                builder.append(isKnown(i) ? val(i).toString() : "u");
+	            }
+	            return builder.toString();
 	        }
 	    }
 
@@ -1221,10 +1799,19 @@ public class Lattices {
 
 	        private String description = "";
 	        private SDGNode node = null;
+	        /**
+	         * Shared constant value, see {@link ValueLattice#constant(int)}
+	         */
+	        private final boolean interned;
 
 	        public Value(List<Bit> bits) {
+	            this(bits, false);
+	        }
+
+	        private Value(List<Bit> bits, boolean interned) {
 	            //assert bits.size() > 1;
 	            this.bits = bits;
+	            this.interned = interned;
 	            for (int i = 0; i < Math.min(bits.size(), vl == null ? 1000 : vl.bitWidth); i++) {
 	                Bit bit = bits.get(i);
 	                bit.valueIndex(i + 1);
@@ -1301,6 +1888,27 @@ public class Lattices {
 	            return bits.stream().allMatch(Bit::isConstant);
 	        }
 
+	        /**
+	         * Is this a shared constant value, that is never modified?
+	         */
+	        public boolean isInterned(){
+	            return interned;
+	        }
+
+	        /**
+	         * Returns a copy of the value if it is interned
+	         */
+	        public Value copyIfInterned(){
+	            return interned ? map(Bit::copy) : this;
+	        }
+
+	        /**
+	         * Returns the packed known bits of the first {@code width} bits
+	         */
+	        public KnownBits knownBits(int width){
+	            return KnownBits.of(this, width);
+	        }
+
 	        public int asInt(){
 	            assert isConstant();
 	            int result = 0;
@@ -1338,7 +1946,7 @@ public class Lattices {
 	        }
 
 	        public Value description(String description){
-	            if (this.description.isEmpty()) {
+	            if (this.description.isEmpty() && !interned) {
 	                this.description = description;
 	            }
 	            return this;
@@ -1353,7 +1961,7 @@ public class Lattices {
 	        }
 
 	        public Value node(SDGNode node) {
-	            if (this.node == null) {
+	            if (this.node == null && !interned) {
 	                this.node = node;
 	            }
 	            return this;
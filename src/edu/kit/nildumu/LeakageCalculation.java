@@ -38,9 +38,8 @@ public class LeakageCalculation {
 
         protected MinCutLeakageGraph(Context context) {
             super(context);
-            compRes = new DefaultMap<>((map, sec) -> {
-                return MinCut.compute(context.sources(sec), context.sinks(sec), context::weight);
-            });
+            // computed for all levels at once, which allows reusing the flows, see MinCut.IncrementalLevels
+            compRes = new DefaultMap<>((map, sec) -> context.computeLeakage().get(sec));
         }
 
         @Override
@@ -5,6 +5,8 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
 
+import edu.kit.nildumu.Lattices.Sec;
+
 /**
  * Runs the program on the command line
  */
@@ -23,6 +25,18 @@ public class Main {
 	@Parameter(names="--dump", description="Dump graphs")
 	private boolean dump = false;
 	
+	@Parameter(names="--mincut", description="Min cut algorithm: auto, dinic, unit_capacity, grapht or ek_approx")
+	private String minCutAlgorithm = MinCut.AUTO;
+	
+	@Parameter(names="--parallelism", description="Number of threads that compute the leakages of the security levels, only used for lattices with more than two levels")
+	private int parallelism = 1;
+	
+	@Parameter(names="--hash-cons", description="Share structurally identical bits of the bitwise operators")
+	private boolean hashCons = false;
+	
+	@Parameter(names="--max-leak", description="Only check that the leakage to an attacker of every level is at most this many bits, exits with 1 otherwise. Stops the min cut computation early with auto, dinic and unit_capacity")
+	private int maxLeak = -1;
+	
 	@Parameter(description="class name, class has to contain a 'program' method that is called in the main method", required=true)
 	private String className;	
 	
@@ -51,14 +65,32 @@ public class Main {
 		} else {
 			BasicLogger.disable();
 		}
+		boolean violated = false;
 		try {
 			Program program = builder.buildProgramOrDie();
+			program.context.minCutAlgorithm(main.minCutAlgorithm).leakageParallelism(main.parallelism)
+					.hashConsBits(main.hashCons);
 			Context context = program.analyze();
-			context.printLeakages();
+			if (main.maxLeak >= 0) {
+				for (Object level : context.sl.elements()) {
+					Sec<?> sec = (Sec<?>) level;
+					if (sec == context.sl.top()) {
+						continue;
+					}
+					boolean leaksMore = !context.leaksAtMost(sec, main.maxLeak);
+					System.out.println(String.format("%s: leaks %s %d bit", sec, leaksMore ? "more than" : "at most", main.maxLeak));
+					violated = violated || leaksMore;
+				}
+			} else {
+				context.printLeakages();
+			}
 		} finally {
 			if (main.dump) {
 				builder.dumpDotGraphs();
 			}
 		}
+		if (violated) {
+			System.exit(1);
+		}
 	}
 }
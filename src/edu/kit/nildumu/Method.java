@@ -64,7 +64,7 @@ public class Method {
 		return getDoms().loopDepth(program.getBlock(node));
 	}
 	
-	public BasicBlockGraph getDoms(){
+	public synchronized BasicBlockGraph getDoms(){
 		if (bbg == null) {
 			bbg = bbgSupplier.get();
 			this.bbg.registerDotGraph("cfg", method.getSignature().toStringHRShort(), 
@@ -1,5 +1,6 @@
 package edu.kit.nildumu;
 
+import static edu.kit.nildumu.BasicLogger.log;
 import static edu.kit.nildumu.Context.INFTY;
 import static edu.kit.nildumu.Lattices.bl;
 import static edu.kit.nildumu.Lattices.B.U;
@@ -7,9 +8,13 @@ import static edu.kit.nildumu.util.Util.p;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -18,11 +23,16 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.jgrapht.alg.flow.EdmondsKarpMaximumFlow;
-import org.jgrapht.alg.flow.PushRelabelMaximumFlow;
 import org.jgrapht.alg.interfaces.MaximumFlowAlgorithm.MaximumFlow;
 import org.jgrapht.ext.ComponentAttributeProvider;
 import org.jgrapht.ext.DOTExporter;
@@ -32,9 +42,13 @@ import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 
 import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+import edu.kit.nildumu.Lattices.Lattice;
 import edu.kit.nildumu.Lattices.Sec;
 import edu.kit.nildumu.util.DefaultMap;
+import edu.kit.nildumu.util.NildumuException;
 import edu.kit.nildumu.util.Pair;
+import edu.kit.nildumu.util.Util;
 import edu.kit.nildumu.util.Util.Box;
 
 /**
@@ -45,32 +59,147 @@ import edu.kit.nildumu.util.Util.Box;
  */
 public class MinCut {
 
-    public static Algo usedAlgo = Algo.GRAPHT_PP;
+    /**
+     * Name of the algorithm that chooses the algorithm by the size and shape of the graph
+     */
+    public static final String AUTO = "auto";
+
+    /**
+     * Creates an algorithm instance for a min cut problem
+     */
+    @FunctionalInterface
+    public interface AlgorithmFactory {
 
-    public static enum Algo {
-        EK_APPROX("approximate Edmonds-Karp"),
-        GRAPHT_PP("JGraphT Preflow-Push");
+        /**
+         * @param context context whose options (e.g. {@link Context#reducesBitGraph()}) are used
+         * @param arena arena that contains the source nodes and all bits reachable from them,
+         *              {@code null} if the algorithm has to create it itself
+         * @param threshold the algorithm may stop when the flow reaches it
+         */
+        Algorithm create(Context context, BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights,
+                         long threshold);
+    }
 
+    /**
+     * A registered algorithm
+     */
+    public static class AlgorithmInfo {
+        public final String name;
         public final String description;
+        final AlgorithmFactory factory;
 
-        Algo(String description){
+        /**
+         * Only reads the bit graph, so that it can be used concurrently
+         */
+        public final boolean readOnly;
+
+        /**
+         * Is a flow based algorithm, whose leakages for all levels can be computed on a
+         * single network (see {@link IncrementalLevels})
+         */
+        public final boolean supportsIncremental;
+
+        AlgorithmInfo(String name, String description, AlgorithmFactory factory, boolean readOnly, boolean supportsIncremental) {
+            this.name = name;
             this.description = description;
+            this.factory = factory;
+            this.readOnly = readOnly;
+            this.supportsIncremental = supportsIncremental;
         }
 
         @Override
         public String toString() {
-            return description;
+            return String.format("%s (%s)", name, description);
+        }
+    }
+
+    /**
+     * Algorithms by name, only filled in the static initializer, so that it can be read concurrently
+     * without synchronization. Each context selects its algorithm, see {@link Context#minCutAlgorithm(String)}
+     */
+    private static final Map<String, AlgorithmInfo> registry = new LinkedHashMap<>();
+
+    private static void register(String name, String description, AlgorithmFactory factory, boolean readOnly,
+                                 boolean supportsIncremental){
+        registry.put(name, new AlgorithmInfo(name, description, factory, readOnly, supportsIncremental));
+    }
+
+    /**
+     * Returns the registered algorithm
+     *
+     * @throws NildumuException if there is no algorithm with this name
+     */
+    public static AlgorithmInfo algorithm(String name){
+        if (!registry.containsKey(name)){
+            throw new NildumuException(String.format("unknown min cut algorithm %s, possible algorithms are: %s",
+                    name, registry.keySet()));
+        }
+        return registry.get(name);
+    }
+
+    public static Set<String> algorithms(){
+        return Collections.unmodifiableSet(registry.keySet());
+    }
+
+    static {
+        register("ek_approx", "approximate Edmonds-Karp",
+                (context, arena, sources, sinks, weights, threshold) -> new ApproxEdmondsKarp(sources, sinks, weights), false, false);
+        register("grapht", "JGraphT Edmonds-Karp",
+                (context, arena, sources, sinks, weights, threshold) -> arena == null ? new GraphTPP(sources, sinks, weights) :
+                        new GraphTPP(arena, sources, sinks, weights), true, false);
+        register("dinic", "Dinic",
+                (context, arena, sources, sinks, weights, threshold) -> new Dinic(
+                        arena == null ? BitArena.create(sources, b -> !sinks.contains(b), weights) : arena,
+                        sources, sinks, weights, threshold, context.reducesBitGraph()), true, true);
+        register("unit_capacity", "bounded unit capacity augmenting paths",
+                (context, arena, sources, sinks, weights, threshold) -> new UnitCapacity(
+                        arena == null ? BitArena.create(sources, b -> !sinks.contains(b), weights) : arena,
+                        sources, sinks, weights, threshold, context.reducesBitGraph()), true, true);
+        register(AUTO, "chooses by graph size and shape", MinCut::chooseAlgorithm, true, true);
+    }
+
+    /**
+     * Chooses the unit capacity algorithm if the number of its augmentations (bounded by the threshold and
+     * {@code min(|sources|, |sinks|)}) is small compared to the number of phases of Dinic's algorithm, that
+     * is bounded by the square root of the number of vertices for unit capacity networks
+     */
+    private static Algorithm chooseAlgorithm(Context context, BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes,
+                                             Function<Bit, Integer> weights, long threshold){
+        if (arena == null){
+            arena = BitArena.create(sourceNodes, b -> !sinkNodes.contains(b), weights);
         }
+        long augmentations = Math.min(threshold, Math.min(sourceNodes.size(), sinkNodes.size()));
+        if (augmentations * augmentations <= arena.size()){
+            return new UnitCapacity(arena, sourceNodes, sinkNodes, weights, threshold, context.reducesBitGraph());
+        }
+        return new Dinic(arena, sourceNodes, sinkNodes, weights, threshold, context.reducesBitGraph());
     }
 
+    /**
+     * Directory that the flow graphs of {@link GraphTPP} are exported to (asynchronously), for debugging,
+     * {@code null} disables the export. Global like {@link #DEBUG}, as it only affects debugging output.
+     */
+    public static Path flowGraphExportDir = null;
+
     public static boolean DEBUG = false;
 
     public static class ComputationResult {
         public final Set<Bit> minCut;
         public final int maxFlow;
 
+        /**
+         * The computation stopped at a threshold: the max flow is only a lower bound
+         * and the min cut is not computed
+         */
+        public final boolean lowerBound;
+
         public ComputationResult(Set<Bit> minCut, long maxFlow) {
+            this(minCut, maxFlow, false);
+        }
+
+        public ComputationResult(Set<Bit> minCut, long maxFlow, boolean lowerBound) {
             this.minCut = minCut;
+            this.lowerBound = lowerBound;
             if (maxFlow > INFTY){
                 this.maxFlow = INFTY;
             } else {
@@ -83,6 +212,9 @@ public class MinCut {
         
         @Override
         public String toString() {
+        	if (lowerBound) {
+        	    return String.format("[maxFlow >= %s]", maxFlow);
+        	}
         	return String.format("[minCut = %s, maxFlow = %s]", minCut, maxFlow);
         }
     }
@@ -586,8 +718,19 @@ public class MinCut {
 
     public static class GraphTPP extends Algorithm {
 
+        private final BitArena arena;
+
         protected GraphTPP(Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights) {
+            this(BitArena.create(sourceNodes, b -> !sinkNodes.contains(b), weights), sourceNodes, sinkNodes, weights);
+        }
+
+        /**
+         * Uses the passed arena, that has to contain the source nodes
+         * and all bits reachable from them
+         */
+        protected GraphTPP(BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights) {
             super(sourceNodes, sinkNodes, weights);
+            this.arena = arena;
         }
 
         @Override
@@ -598,62 +741,100 @@ public class MinCut {
             Vertex sink = new Vertex(bl.forceCreateXBit(), true);
             graph.addVertex(source);
             graph.addVertex(sink);
-            double infty = Bit.getNumberOfCreatedBits() * 2;
-            Map<Bit, Pair<Vertex, Vertex>> bitToNodes =
-                    new DefaultMap<>((map, bit) -> {
-                        Vertex start = new Vertex(bit, true);
-                        Vertex end = new Vertex(bit, false);
-                        graph.addVertex(start);
-                        graph.addVertex(end);
-                        DefaultWeightedEdge edge = graph.addEdge(start, end);
-                        graph.setEdgeWeight(edge, weights.apply(bit) == INFTY ? infty : 1);
-                        return new Pair<>(start, end);
-                    });
-            Set<Bit> alreadyVisited = new HashSet<>();
-            for (Bit bit : sourceNodes){
-                bl.walkBits(bit, b -> {
-                    for (Bit d : b.deps()){
-                        graph.setEdgeWeight(graph.addEdge(bitToNodes.get(b).second, bitToNodes.get(d).first), infty * infty);
-                    }
-                }, sinkNodes::contains, alreadyVisited);
-                graph.setEdgeWeight(graph.addEdge(source, bitToNodes.get(bit).first), infty * infty);
+            double infty = arena.size() * 2 + 2;
+            Vertex[] starts = new Vertex[arena.size()];
+            Vertex[] ends = new Vertex[arena.size()];
+            int[] sources = arena.indexesOf(sourceNodes);
+            boolean[] isSink = new boolean[arena.size()];
+            for (int sinkIndex : arena.indexesOf(sinkNodes)){
+                isSink[sinkIndex] = true;
             }
-            for (Bit bit : sinkNodes){
-                graph.setEdgeWeight(graph.addEdge(bitToNodes.get(bit).second, sink), infty * infty);
+            // breadth first search over the arena, not expanding sink nodes
+            int[] queue = new int[arena.size()];
+            int queueEnd = 0;
+            for (int i : sources){
+                if (starts[i] == null){
+                    queueEnd = addVertices(graph, i, starts, ends, queue, queueEnd, infty);
+                }
+                graph.setEdgeWeight(graph.addEdge(source, starts[i]), infty * infty);
+            }
+            int[] deps = arena.deps();
+            for (int q = 0; q < queueEnd; q++){
+                int cur = queue[q];
+                if (isSink[cur]){
+                    graph.setEdgeWeight(graph.addEdge(ends[cur], sink), infty * infty);
+                    continue;
+                }
+                for (int j = arena.depStart(cur); j < arena.depEnd(cur); j++){
+                    int dep = deps[j];
+                    if (starts[dep] == null){
+                        queueEnd = addVertices(graph, dep, starts, ends, queue, queueEnd, infty);
+                    }
+                    graph.setEdgeWeight(graph.addEdge(ends[cur], starts[dep]), infty * infty);
+                }
             }
-            PushRelabelMaximumFlow<Vertex, DefaultWeightedEdge> pp = new PushRelabelMaximumFlow<Vertex, DefaultWeightedEdge>(graph);
-            try {
-				new org.jgrapht.ext.DOTExporter<Vertex, DefaultWeightedEdge>().export(new FileWriter("out/bla.dot"), graph);
-			} catch (IOException e1) {
-				e1.printStackTrace();
-			}
             MaximumFlow<Vertex, DefaultWeightedEdge> mf = new EdmondsKarpMaximumFlow<>(graph).buildMaximumFlow(source, sink);
             double maxFlow = mf.getValue();
+            Map<DefaultWeightedEdge, Double> flow = mf.getFlow();
+            // vertices reachable from the source in the residual graph
             Queue<Vertex> q = new ArrayDeque<>();
-            q.offer(source);
             Set<Vertex> reachable = new HashSet<>();
+            q.offer(source);
+            reachable.add(source);
             while (!q.isEmpty()) {
-            	Vertex cur = q.poll();
-            	graph.edgesOf(cur).stream().filter(v -> !reachable.contains(v)).filter(e -> {
-            		double weight = graph.getEdgeWeight(e);
-            		double flow = mf.getFlow().getOrDefault(e, 0d);
-            		return weight != flow;
-            	});
+                Vertex cur = q.poll();
+                for (DefaultWeightedEdge e : graph.edgesOf(cur)) {
+                    double edgeFlow = flow.getOrDefault(e, 0d);
+                    if (graph.getEdgeSource(e) == cur) {
+                        Vertex target = graph.getEdgeTarget(e);
+                        if (graph.getEdgeWeight(e) > edgeFlow && reachable.add(target)) {
+                            q.offer(target);
+                        }
+                    } else if (edgeFlow > 0 && reachable.add(graph.getEdgeSource(e))) {
+                        q.offer(graph.getEdgeSource(e));
+                    }
+                }
             }
             Set<Bit> minCut = graph.edgeSet().stream()
-            		.filter(e -> reachable.contains(graph.getEdgeSource(e)) && !reachable.contains(graph.getEdgeTarget(e)))
-            		.map(e -> {
-            			graph.setEdgeWeight(e, 777);
-            			//System.err.println(graph.getEdgeSource(e).bit);
-            			return e;
-            		})
-            		.map(e -> graph.getEdgeSource(e).bit).collect(Collectors.toSet());
-            //exportGraph(graph, "bla_graph.dot");
+                    .filter(e -> reachable.contains(graph.getEdgeSource(e)) && !reachable.contains(graph.getEdgeTarget(e)))
+                    .map(e -> graph.getEdgeSource(e).bit).collect(Collectors.toSet());
+            if (flowGraphExportDir != null) {
+                exportGraphAsync(graph);
+            }
             return new ComputationResult(minCut, Math.min(Math.round(maxFlow), Math.min(sourceNodes.size(), sinkNodes.size())));
         }
+
+        private int addVertices(SimpleDirectedWeightedGraph<Vertex, DefaultWeightedEdge> graph, int index,
+                Vertex[] starts, Vertex[] ends, int[] queue, int queueEnd, double infty){
+            Vertex start = new Vertex(arena.bit(index), true);
+            Vertex end = new Vertex(arena.bit(index), false);
+            graph.addVertex(start);
+            graph.addVertex(end);
+            graph.setEdgeWeight(graph.addEdge(start, end), arena.hasInfiniteWeight(index) ? infty : 1);
+            starts[index] = start;
+            ends[index] = end;
+            queue[queueEnd] = index;
+            return queueEnd + 1;
+        }
         
+        /**
+         * Exports the graph to a new file in the {@link #flowGraphExportDir}, on a background thread
+         */
+        private static void exportGraphAsync(SimpleDirectedWeightedGraph<Vertex, DefaultWeightedEdge> g) {
+            Path file = flowGraphExportDir.resolve(String.format("flow_graph_%d.dot", exportedGraphs.incrementAndGet()));
+            exporter.execute(() -> exportGraph(g, file));
+        }
+
+        private static final AtomicInteger exportedGraphs = new AtomicInteger();
+
+        private static final ExecutorService exporter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "flow graph export");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         /** https://stackoverflow.com/a/16998796 */
-        private void exportGraph(SimpleDirectedWeightedGraph<Vertex, DefaultWeightedEdge> g, String filename) {
+        private static void exportGraph(SimpleDirectedWeightedGraph<Vertex, DefaultWeightedEdge> g, Path file) {
         	IntegerNameProvider<Vertex> p1=new IntegerNameProvider<Vertex>();
             StringNameProvider<Vertex> p2=new StringNameProvider<Vertex>();
             ComponentAttributeProvider<DefaultWeightedEdge> p4 =
@@ -666,40 +847,300 @@ public class MinCut {
                };
             DOTExporter export = new DOTExporter(p1, p2, null, null, p4);
             try {
-                export.export(new FileWriter(filename), g);
-            }catch (IOException e){}
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                try (FileWriter writer = new FileWriter(file.toFile())) {
+                    export.export(writer, g);
+                }
+            } catch (IOException e){
+                e.printStackTrace();
+            }
         }
     }
 
     /**
-     * Choose the algorithm by setting the static {@link MinCut#usedAlgo} variable
+     * Dinic's algorithm on a {@link FlowNetwork} that is created from the bit arena
      */
-    public static ComputationResult compute(Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights){
-        Algorithm cur = null;
-        switch (usedAlgo){
-            case GRAPHT_PP:
-                cur = new GraphTPP(sourceNodes, sinkNodes, weights);
-                break;
-            case EK_APPROX:
-                cur = new ApproxEdmondsKarp(sourceNodes, sinkNodes, weights);
-        }
-        return cur.compute();
+    public static class Dinic extends Algorithm {
+
+        private final BitArena arena;
+
+        private final long threshold;
+        private final boolean reduce;
+
+        protected Dinic(Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights) {
+            this(BitArena.create(sourceNodes, b -> !sinkNodes.contains(b), weights), sourceNodes, sinkNodes, weights,
+                    Long.MAX_VALUE, true);
+        }
+
+        /**
+         * Uses the passed arena, that has to contain the source nodes
+         * and all bits reachable from them
+         *
+         * @param threshold stop after the phase in which the flow reaches it, the result is then only a lower bound
+         * @param reduce reduce the arena first, see {@link ArenaReduction}
+         */
+        protected Dinic(BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights,
+                        long threshold, boolean reduce) {
+            super(sourceNodes, sinkNodes, weights);
+            this.arena = arena;
+            this.threshold = threshold;
+            this.reduce = reduce;
+        }
+
+        @Override
+        public ComputationResult compute() {
+            ArenaReduction reduction = reduce(arena, sourceNodes, sinkNodes, reduce);
+            FlowNetwork network = reduction.network();
+            long bound = Math.min(sourceNodes.size(), sinkNodes.size());
+            long maxFlow = network.maxFlow(threshold);
+            // the leakage is bounded by the number of sources and sinks
+            if (maxFlow > bound) {
+                Set<Bit> smaller = sourceNodes.size() < sinkNodes.size() ? sourceNodes : sinkNodes;
+                return new ComputationResult(smaller, smaller.size());
+            }
+            if (maxFlow >= threshold) {
+                return new ComputationResult(Collections.emptySet(), maxFlow, true);
+            }
+            return new ComputationResult(reduction.cut(network), maxFlow);
+        }
+    }
+
+    /**
+     * Augments along shortest paths in a {@link FlowNetwork} that is created from the bit arena and stops
+     * as soon as the flow reaches {@code min(|sources|, |sinks|)} or the threshold.
+     * <p/>
+     * All bits have a weight of either one or infinity, so every augmentation increases the flow by
+     * at least one and the number of augmentations is bounded by the (typically small) number of sources.
+     */
+    public static class UnitCapacity extends Algorithm {
+
+        private final BitArena arena;
+        private final long threshold;
+        private final boolean reduce;
+
+        protected UnitCapacity(Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights) {
+            this(BitArena.create(sourceNodes, b -> !sinkNodes.contains(b), weights), sourceNodes, sinkNodes, weights,
+                    Long.MAX_VALUE, true);
+        }
+
+        /**
+         * Uses the passed arena, that has to contain the source nodes
+         * and all bits reachable from them
+         *
+         * @param threshold stop if the flow reaches it, the result is then only a lower bound
+         * @param reduce reduce the arena first, see {@link ArenaReduction}
+         */
+        protected UnitCapacity(BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes, Function<Bit, Integer> weights,
+                               long threshold, boolean reduce) {
+            super(sourceNodes, sinkNodes, weights);
+            this.arena = arena;
+            this.threshold = threshold;
+            this.reduce = reduce;
+        }
+
+        @Override
+        public ComputationResult compute() {
+            ArenaReduction reduction = reduce(arena, sourceNodes, sinkNodes, reduce);
+            FlowNetwork network = reduction.network();
+            long bound = Math.min(sourceNodes.size(), sinkNodes.size());
+            long flow = network.augmentingPaths(Math.min(bound, threshold));
+            // the leakage is bounded by the number of sources and sinks
+            if (flow >= bound) {
+                Set<Bit> smaller = sourceNodes.size() < sinkNodes.size() ? sourceNodes : sinkNodes;
+                return new ComputationResult(smaller, smaller.size());
+            }
+            if (flow >= threshold) {
+                return new ComputationResult(Collections.emptySet(), flow, true);
+            }
+            return new ComputationResult(reduction.cut(network), flow);
+        }
+    }
+
+    /**
+     * Computes the leakages of all attacker levels on a single flow network over the leakage core
+     * of all levels ({@link Context#leakageCore()}).
+     * <p/>
+     * The network contains edges from the super source to all output bits and from all secret input bits to
+     * the super sink, the edges that do not belong to the current level have capacity zero. The sources only
+     * grow and the sinks only shrink along the lattice order, so the levels are visited in this order and most
+     * of the flow of the previous level is reused, see {@link FlowNetwork#setCapacity(int, long)}.
+     */
+    static class IncrementalLevels {
+
+        private final Context context;
+        private final BitArena arena;
+        private final ArenaReduction reduction;
+        private final FlowNetwork network;
+
+        /**
+         * Edge from the super source for every arena index, {@code -1} if the bit is no output bit
+         */
+        private final int[] sourceEdges;
+
+        /**
+         * Edge to the super sink for every arena index, {@code -1} if the bit is no secret input bit
+         */
+        private final int[] sinkEdges;
+
+        IncrementalLevels(Context context) {
+            this.context = context;
+            this.arena = context.leakageCore();
+            sourceEdges = new int[arena.size()];
+            sinkEdges = new int[arena.size()];
+            Arrays.fill(sourceEdges, -1);
+            Arrays.fill(sinkEdges, -1);
+            // the sources and sinks of all levels are kept
+            int[] allSources = arena.indexesOf(context.sources(context.sl.top()));
+            int[] allSinks = arena.indexesOf(context.sinks(context.sl.bot()));
+            reduction = new ArenaReduction(arena, allSources, allSinks, context.reducesBitGraph());
+            FlowNetwork.Builder builder = reduction.splitVertices();
+            for (int i : allSources) {
+                sourceEdges[i] = builder.nextEdge();
+                builder.addEdge(reduction.sourceVertex(), FlowNetwork.inVertex(reduction.vertex(i)), 0);
+            }
+            for (int i : allSinks) {
+                sinkEdges[i] = builder.nextEdge();
+                builder.addEdge(FlowNetwork.outVertex(reduction.vertex(i)), reduction.sinkVertex(), 0);
+            }
+            network = builder.build(reduction.sourceVertex(), reduction.sinkVertex());
+        }
+
+        Map<Sec<?>, ComputationResult> compute() {
+            List<Sec<?>> levels = context.sl.elements().stream().map(s -> (Sec<?>) s).collect(Collectors.toList());
+            // linear extension of the lattice order: a level comes after all lower levels
+            Map<Sec<?>, Long> lowerLevels = levels.stream().collect(Collectors.toMap(s -> s,
+                    s -> levels.stream().filter(l -> ((Lattice) context.sl).lowerEqualsThan(l, s)).count()));
+            levels.sort(Comparator.comparing(lowerLevels::get));
+            Map<Sec<?>, ComputationResult> results = new LinkedHashMap<>();
+            for (Sec<?> sec : levels) {
+                results.put(sec, sec == context.sl.top() ? new ComputationResult(Collections.emptySet(), 0) : compute(sec));
+            }
+            return results;
+        }
+
+        ComputationResult compute(Sec<?> sec) {
+            if (arena.size() == 0) {
+                return new ComputationResult(Collections.emptySet(), 0);
+            }
+            Set<Bit> sources = context.sources(sec).stream().filter(arena::contains).collect(Collectors.toSet());
+            Set<Bit> sinks = context.sinks(sec).stream().filter(arena::contains).collect(Collectors.toSet());
+            updateCapacities(sourceEdges, sources);
+            updateCapacities(sinkEdges, sinks);
+            long maxFlow = network.maxFlow();
+            if (network.hasInfiniteFlow() || sources.stream().anyMatch(context::hasInfiniteWeight)
+                    || sinks.stream().anyMatch(context::hasInfiniteWeight)) {
+                // the leakage is bounded by the number of sources and sinks that lie on a path between them
+                BitArena core = arena.prune(sources, sinks);
+                Set<Bit> coreSources = sources.stream().filter(core::contains).collect(Collectors.toSet());
+                Set<Bit> coreSinks = sinks.stream().filter(core::contains).collect(Collectors.toSet());
+                if (maxFlow > Math.min(coreSources.size(), coreSinks.size())) {
+                    Set<Bit> smaller = coreSources.size() < coreSinks.size() ? coreSources : coreSinks;
+                    return new ComputationResult(smaller, smaller.size());
+                }
+            }
+            return new ComputationResult(reduction.cut(network), maxFlow);
+        }
+
+        private void updateCapacities(int[] edges, Set<Bit> bits) {
+            for (int i = 0; i < edges.length; i++) {
+                if (edges[i] != -1) {
+                    long capacity = bits.contains(arena.bit(i)) ? FlowNetwork.INFINITE_CAPACITY : 0;
+                    if (network.capacity(edges[i]) != capacity) {
+                        network.setCapacity(edges[i], capacity);
+                    }
+                }
+            }
+        }
+    }
+
+    private static ArenaReduction reduce(BitArena arena, Set<Bit> sourceNodes, Set<Bit> sinkNodes, boolean reduce) {
+        ArenaReduction reduction = new ArenaReduction(arena, arena.indexesOf(sourceNodes), arena.indexesOf(sinkNodes), reduce);
+        log(() -> reduction);
+        return reduction;
+    }
+
+    /**
+     * Computes the min cut with the algorithm of the context
+     */
+    public static ComputationResult compute(Context context, Set<Bit> sourceNodes, Set<Bit> sinkNodes,
+                                            Function<Bit, Integer> weights){
+        return compute(context, algorithm(context.minCutAlgorithm()).factory.create(context, null, sourceNodes, sinkNodes, weights, Long.MAX_VALUE));
     }
 
     public static ComputationResult compute(Context context, Sec<?> sec){
-        con = context;
+        return compute(context, sec, Long.MAX_VALUE);
+    }
+
+    /**
+     * Computes the leakage to the passed level, stops early if it is at least the threshold
+     * (the result is then only a lower bound, see {@link ComputationResult#lowerBound}).
+     * The threshold is supported by Dinic and the unit capacity algorithm (and therefore by {@code auto}),
+     * the other algorithms (grapht and ek_approx) always compute the exact leakage.
+     */
+    public static ComputationResult compute(Context context, Sec<?> sec, long threshold){
         if (sec == context.sl.top()){
             return new ComputationResult(Collections.emptySet(), 0);
         }
-        return compute(context.sources(sec), context.sinks(sec), context::weight);
+        BitArena core = context.leakageCore(sec);
+        if (core.size() == 0){
+            return new ComputationResult(Collections.emptySet(), 0);
+        }
+        // only the sources and sinks that are part of the core are relevant
+        Set<Bit> sources = context.sources(sec).stream().filter(core::contains).collect(Collectors.toSet());
+        Set<Bit> sinks = context.sinks(sec).stream().filter(core::contains).collect(Collectors.toSet());
+        return compute(context, algorithm(context.minCutAlgorithm()).factory.create(context, core, sources, sinks, context::weight, threshold));
     }
 
-    private static Context con;
+    /**
+     * Runs the algorithm with the allocator of the context bound, some algorithms create auxiliary bits
+     */
+    private static ComputationResult compute(Context context, Algorithm algorithm){
+        return context.bitIdAllocator().callBound(algorithm::compute);
+    }
 
+    /**
+     * Computes the leakages of all levels, in parallel if the parallelism of the context is larger than one
+     * and there are at least two levels besides the top level (the leakage to the top level is always zero)
+     */
     public static Map<Sec<?>, ComputationResult> compute(Context context){
+        AlgorithmInfo algorithm = algorithm(context.minCutAlgorithm());
+        if (context.leakageParallelism() > 1 && algorithm.readOnly && context.sl.elements().size() > 2){
+            return compute(context, context.leakageParallelism());
+        }
+        if (context.incrementalLeakage() && algorithm.supportsIncremental){
+            return new IncrementalLevels(context).compute();
+        }
         return context.sl.elements().stream()
                 .collect(Collectors.toMap(s -> (Sec<?>)s, s -> s == context.sl.top() ?
                         new ComputationResult(Collections.emptySet(), 0) :
                         compute(context, s)));
     }
+
+    /**
+     * Computes the leakages of all levels in parallel, the computations only read the bit graph
+     * and use their own flow networks. The pools are shared between calls, see {@link Util#pool(int)}
+     */
+    public static Map<Sec<?>, ComputationResult> compute(Context context, int parallelism){
+        BitIdAllocator allocator = context.bitIdAllocator();
+        List<Sec<?>> levels = context.sl.elements().stream().map(s -> (Sec<?>) s).collect(Collectors.toList());
+        List<Callable<ComputationResult>> tasks = levels.stream().map(s -> (Callable<ComputationResult>) () ->
+            allocator.callBound(() -> s == context.sl.top() ? new ComputationResult(Collections.emptySet(), 0) : compute(context, s))
+        ).collect(Collectors.toList());
+        try {
+            List<Future<ComputationResult>> results = Util.pool(parallelism).invokeAll(tasks);
+            Map<Sec<?>, ComputationResult> leakages = new LinkedHashMap<>();
+            for (int i = 0; i < levels.size(); i++) {
+                leakages.put(levels.get(i), results.get(i).get());
+            }
+            return leakages;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NildumuException("Interrupted while computing the leakages");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new NildumuException(String.format("Computing the leakages failed: %s", e.getCause()));
+        }
+    }
 }
@@ -2,6 +2,7 @@ package edu.kit.nildumu;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -59,6 +60,15 @@ public class Mods {
         return replacements.get(bit);
     }
 
+    /**
+     * Returns new modifications with both the original and the replacement bits mapped
+     */
+    public Mods map(Function<Bit, Bit> mapper){
+        Mods mods = Mods.empty();
+        replacements.forEach((orig, repl) -> mods.replacements.put(mapper.apply(orig), mapper.apply(repl)));
+        return mods;
+    }
+
     public static Mods empty(){
         return new Mods(new HashMap<>());
     }
@@ -18,10 +18,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.Stack;
-import java.util.function.BiPredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -30,7 +28,9 @@ import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.nildumu.Lattices.B;
 import edu.kit.nildumu.Lattices.Bit;
 import edu.kit.nildumu.Lattices.DependencySet;
+import edu.kit.nildumu.Lattices.DependencySetImpl;
 import edu.kit.nildumu.Lattices.DependencySetLattice;
+import edu.kit.nildumu.Lattices.KnownBits;
 import edu.kit.nildumu.Lattices.Value;
 import edu.kit.nildumu.util.NildumuException;
 import edu.kit.nildumu.util.Pair;
@@ -117,14 +117,28 @@ public interface Operator {
 
         public final String symbol;
 
+        /**
+         * Evaluates constant arguments natively, might be {@code null}
+         */
+        private final IntUnaryOperator folder;
+
         public UnaryOperator(String symbol) {
+            this(symbol, null);
+        }
+
+        public UnaryOperator(String symbol, IntUnaryOperator folder) {
             this.symbol = symbol;
+            this.folder = folder;
         }
 
         @Override
         public Value compute(Context c, List<Value> arguments) {
             checkArguments(arguments);
-            return compute(c, arguments.get(0));
+            Value argument = arguments.get(0);
+            if (folder != null && argument.isConstant()) {
+                return vl.constant(folder.applyAsInt(argument.asInt()));
+            }
+            return compute(c, argument);
         }
 
         abstract Value compute(Context c, Value argument);
@@ -146,17 +160,42 @@ public interface Operator {
 
         public final String symbol;
 
-        SDGNode currentNode;
+        /**
+         * Node that is currently evaluated, per thread as operators are shared
+         */
+        final ThreadLocal<SDGNode> currentNode = new ThreadLocal<>();
+
+        /**
+         * Evaluates constant arguments natively, might be {@code null}
+         */
+        private final IntBinaryOperator folder;
 
         public BinaryOperator(String symbol) {
+            this(symbol, null);
+        }
+
+        public BinaryOperator(String symbol, IntBinaryOperator folder) {
             this.symbol = symbol;
+            this.folder = folder;
         }
 
         @Override
         public Value compute(Context c, SDGNode node, List<Value> arguments) {
             checkArguments(arguments);
-            currentNode = node;
-            return compute(c, arguments.get(0), arguments.get(1));
+            Value first = arguments.get(0);
+            Value second = arguments.get(1);
+            if (folder != null && first.isConstant() && second.isConstant() && canFold(first.asInt(), second.asInt())) {
+                return vl.constant(folder.applyAsInt(first.asInt(), second.asInt()));
+            }
+            currentNode.set(node);
+            return compute(c, first, second);
+        }
+
+        /**
+         * Can the constant arguments be evaluated with the folder?
+         */
+        boolean canFold(int first, int second) {
+            return true;
         }
 
         abstract Value compute(Context c, Value first, Value second);
@@ -180,12 +219,37 @@ public interface Operator {
             super(symbol);
         }
 
+        public BitWiseBinaryOperator(String symbol, IntBinaryOperator folder) {
+            super(symbol, folder);
+        }
+
         @Override
         Value compute(Context c, Value first, Value second) {
-             return new Value(first.lattice().mapBits(first, second, (a, b) -> compute(c, a, b)));
+            int width = Math.min(Math.max(first.size(), second.size()), vl.bitWidth);
+            if (width <= KnownBits.MAX_WIDTH) {
+                KnownBits known = computeKnownBits(first.knownBits(width), second.knownBits(width));
+                if (known != null) {
+                    List<Bit> bits = new ArrayList<>(width);
+                    for (int i = 1; i <= width; i++) {
+                        bits.add(known.isKnown(i) ? bl.constant(known.val(i)) : compute(c, first.get(i), second.get(i)));
+                    }
+                    return new Value(bits);
+                }
+            }
+            return new Value(first.lattice().mapBits(first, second, (a, b) -> compute(c, a, b)));
         }
 
         abstract Bit compute(Context c, Bit first, Bit second);
+
+        /**
+         * Computes the constant bits of the result for all bits at once, only the other bits
+         * are computed bit by bit
+         *
+         * @return {@code null} if not supported
+         */
+        KnownBits computeKnownBits(KnownBits first, KnownBits second) {
+            return null;
+        }
     }
 
     /**
@@ -205,6 +269,10 @@ public interface Operator {
             super(symbol);
         }
 
+        public BitWiseBinaryOperatorStructured(String symbol, IntBinaryOperator folder) {
+            super(symbol, folder);
+        }
+
         @Override
         Bit compute(Context c, Bit x, Bit y) {
             Lattices.B bitValue = computeBitValue(x, y);
@@ -212,8 +280,10 @@ public interface Operator {
                 return bl.create(bitValue);
             }
             DependencySet dataDeps = computeDataDependencies(x, y, bitValue);
-            Bit r = bl.create(bitValue, dataDeps);
-            c.repl(r, computeModificator(x, y, r, dataDeps));
+            Bit r = bl.create(c.bitTable(), this, bitValue, dataDeps, x, y);
+            if (!c.hasRepl(r)) {
+                c.repl(r, computeModificator(x, y, r, dataDeps));
+            }
             return r;
         }
 
@@ -228,7 +298,10 @@ public interface Operator {
 
         private final String symbol;
 
-        SDGNode currentNode;
+        /**
+         * Node that is currently evaluated, per thread as operators are shared
+         */
+        final ThreadLocal<SDGNode> currentNode = new ThreadLocal<>();
 
         public BitWiseOperator(String symbol) {
             this.symbol = symbol;
@@ -236,7 +309,7 @@ public interface Operator {
 
         @Override
         public Value compute(Context c, SDGNode node, List<Value> values) {
-            currentNode = node;
+            currentNode.set(node);
             int maxWidth = values.stream().mapToInt(Value::size).max().getAsInt();
             return IntStream.range(1, maxWidth + 1).mapToObj(i -> {
             	return computeBit(c, values.stream().map(v -> v.get(i)).collect(Collectors.toList()));
@@ -291,6 +364,10 @@ public interface Operator {
             super(symbol);
         }
 
+        public BinaryOperatorStructured(String symbol, IntBinaryOperator folder) {
+            super(symbol, folder);
+        }
+
         @Override
         public Value compute(Context c, Value x, Value y) {
             List<B> bitValues = computeBitValues(x, y);
@@ -330,7 +407,12 @@ public interface Operator {
     /**
      * the bitwise or operator (can be used for booleans (ints of which only the first bit matters) too)
      */
-    static final BitWiseBinaryOperatorStructured OR = new BitWiseBinaryOperatorStructured("|") {
+    static final BitWiseBinaryOperatorStructured OR = new BitWiseBinaryOperatorStructured("|", (a, b) -> a | b) {
+
+        @Override
+        KnownBits computeKnownBits(KnownBits first, KnownBits second) {
+            return first.or(second);
+        }
 
         @Override
         public B computeBitValue(Bit x, Bit y) {
@@ -372,7 +454,12 @@ public interface Operator {
         }
     };
 
-    static final BitWiseBinaryOperatorStructured AND = new BitWiseBinaryOperatorStructured("&") {
+    static final BitWiseBinaryOperatorStructured AND = new BitWiseBinaryOperatorStructured("&", (a, b) -> a & b) {
+
+        @Override
+        KnownBits computeKnownBits(KnownBits first, KnownBits second) {
+            return first.and(second);
+        }
 
         @Override
         public B computeBitValue(Bit x, Bit y) {
@@ -414,7 +501,12 @@ public interface Operator {
         }
     };
 
-    static final BitWiseBinaryOperator XOR = new BitWiseBinaryOperatorStructured("^") {
+    static final BitWiseBinaryOperator XOR = new BitWiseBinaryOperatorStructured("^", (a, b) -> a ^ b) {
+
+        @Override
+        KnownBits computeKnownBits(KnownBits first, KnownBits second) {
+            return first.xor(second);
+        }
 
         @Override
         public B computeBitValue(Bit x, Bit y) {
@@ -464,35 +556,40 @@ public interface Operator {
         }
     };
 
-    static final UnaryOperator NOT = new UnaryOperator("~") {
+    static final UnaryOperator NOT = new UnaryOperator("~", a -> ~a) {
         @Override
         public Value compute(Context c, Value x) {
             return x.stream().map(b -> {
+                if (b.isConstant()) {
+                    return bl.constant(v(b).neg());
+                }
                 B val = v(b).neg();
                 DependencySet dataDeps = b.isConstant() ? ds.empty() : ds.create(b);
-                Bit r = bl.create(val, dataDeps);
-                c.repl(r, new StructuredModsCreator() {
-                    @Override
-                    public Mods assumeOne(Context c, Bit r, Bit a) {
-                        return c.repl(b, bl.create(ZERO));
-                    }
-
-                    @Override
-                    public Mods assumeZero(Context c, Bit r, Bit a) {
-                        return c.repl(b, bl.create(ONE));
-                    }
-
-                    @Override
-                    public Mods assumeUnused(Context c, Bit r, Bit a) {
-                        return c.repl(b, a);
-                    }
-                });
+                Bit r = bl.create(c.bitTable(), this, val, dataDeps, b);
+                if (!c.hasRepl(r)) {
+                    c.repl(r, new StructuredModsCreator() {
+                        @Override
+                        public Mods assumeOne(Context c, Bit r, Bit a) {
+                            return c.repl(b, bl.create(ZERO));
+                        }
+
+                        @Override
+                        public Mods assumeZero(Context c, Bit r, Bit a) {
+                            return c.repl(b, bl.create(ONE));
+                        }
+
+                        @Override
+                        public Mods assumeUnused(Context c, Bit r, Bit a) {
+                            return c.repl(b, a);
+                        }
+                    });
+                }
                 return r;
             }).collect(Value.collector());
         }
     };
 
-    static final BinaryOperator EQUALS = new BinaryOperatorStructured("==") {
+    static final BinaryOperator EQUALS = new BinaryOperatorStructured("==", (a, b) -> a == b ? 1 : 0) {
         @Override
         public Lattices.B computeBitValue(int i, Value x, Value y) {
             if (i > 1) {
@@ -504,6 +601,9 @@ public interface Operator {
             if (x.lattice().mapBits(x, y, (a, b) -> !a.val().equals(b.val()) && a.isConstant() && b.isConstant()).stream().anyMatch(Boolean::booleanValue)) {
                 return ZERO;
             }
+            if (rangesAreDisjoint(x, y)) {
+                return ZERO;
+            }
             return U;
         }
 
@@ -540,7 +640,7 @@ public interface Operator {
         }
     };
 
-    static final BinaryOperator UNEQUALS = new BinaryOperatorStructured("!=") {
+    static final BinaryOperator UNEQUALS = new BinaryOperatorStructured("!=", (a, b) -> a != b ? 1 : 0) {
 
         @Override
         public Lattices.B computeBitValue(int i, Value x, Value y) {
@@ -553,6 +653,9 @@ public interface Operator {
             if (x.lattice().mapBits(x, y, (a, b) -> !a.val().equals(b.val()) && a.isConstant() && b.isConstant()).stream().anyMatch(Boolean::booleanValue)) {
                 return ONE;
             }
+            if (rangesAreDisjoint(x, y)) {
+                return ONE;
+            }
             return U;
         }
 
@@ -592,81 +695,124 @@ public interface Operator {
         }
     };
 
-    static final BinaryOperatorStructured LESS = new BinaryOperatorStructured("<") {
+    /**
+     * Signed comparison of two values, the result has a single bit.
+     * <p/>
+     * The bits are compared from the most significant bit down to the first position
+     * where both bits are constant and differ, the result depends only on the unknown bits
+     * at and above this position.
+     */
+    public static class Comparator extends BinaryOperator {
+
+        /**
+         * Compute {@code second < first} instead of {@code first < second}
+         */
+        private final boolean swapArguments;
 
-        Stack<DependencySet> dependentBits = new Stack<>();
+        /**
+         * Negate the result
+         */
+        private final boolean negate;
+
+        Comparator(String symbol, IntBinaryOperator folder, boolean swapArguments, boolean negate) {
+            super(symbol, folder);
+            this.swapArguments = swapArguments;
+            this.negate = negate;
+        }
 
         @Override
-        public B computeBitValue(int i, Value x, Value y) {
-            if (i > 1) {
-                return ZERO;
+        Value compute(Context c, Value first, Value second) {
+            Bit less = swapArguments ? less(second, first) : less(first, second);
+            Bit result = less;
+            if (negate) {
+                result = less.isConstant() ? bl.constant(less.val().neg()) : bl.create(U, less.deps());
             }
-            if (x.isConstant() && y.isConstant()) {
-            	return bs.parse(x.asInt() < y.asInt());
-            }
-            Lattices.B val = U;
-            DependencySet depBits = Stream.concat(x.stream(), y.stream()).filter(Bit::isUnknown).collect(DependencySet.collector());
-            Bit a_n = x.signBit();
-            Bit b_n = y.signBit();
-            B v_x_n = a_n.val();
-            B v_y_n = b_n.val();
-            Optional<Integer> differingNonConstantIndex = firstNonMatching(x, y, (c, d) -> c.isConstant() && c == d);
-            if (v_x_n.isConstant() && v_y_n.isConstant() && v_x_n != v_y_n) {
-                depBits = ds.empty();
-                if (v_x_n == ONE) { // x is negative
-                    val = ONE;
-                } else {
-                    depBits = ds.empty();
-                    val = ZERO;
-                }
-            } else if (v_x_n == ZERO && v_y_n == ZERO && differingNonConstantIndex.isPresent() &&
-                    x.get(differingNonConstantIndex.get()).isConstant() && y.get(differingNonConstantIndex.get()).isConstant()) {
-                val = y.get(differingNonConstantIndex.get()).val();
-                depBits = ds.empty();
+            if (!result.isConstant()) {
+                c.repl(result, (con, b, a) -> Mods.empty());
+            }
+            List<Bit> bits = new ArrayList<>(first.size());
+            bits.add(result);
+            for (int i = 2; i <= first.size(); i++) {
+                bits.add(bl.constant(ZERO));
             }
-            dependentBits.push(depBits);
-            return val;
+            return new Value(bits);
         }
 
-        Optional<Integer> firstNonMatching(Value x, Value y, BiPredicate<B, B> pred) {
-            int j = Math.max(x.size(), y.size()) - 1;
-            while (j >= 1 && pred.test(x.get(j).val(), y.get(j).val())) {
-                j--;
+        /**
+         * Computes the bit for {@code x < y}
+         */
+        Bit less(Value x, Value y) {
+            B decided = decideByRange(x, y);
+            if (decided != null) {
+                return bl.constant(decided);
+            }
+            int width = Math.min(Math.max(x.size(), y.size()), vl.bitWidth);
+            List<Bit> deps = new ArrayList<>();
+            boolean undecided = false;
+            for (int i = width; i >= 1; i--) {
+                Bit a = x.get(i);
+                Bit b = y.get(i);
+                if (a.isConstant() && b.isConstant()) {
+                    if (a.val() == b.val()) {
+                        continue;
+                    }
+                    if (!undecided) {
+                        // for the sign bit, the negative value (one) is smaller
+                        B val = (a.val() == ONE) == (i == width) ? ONE : ZERO;
+                        return bl.constant(val);
+                    }
+                    break;
+                }
+                undecided = true;
+                if (a.isUnknown()) {
+                    deps.add(a);
+                }
+                if (b.isUnknown()) {
+                    deps.add(b);
+                }
             }
-            if (j > 1) {
-                return Optional.of(j);
+            if (!undecided) {
+                return bl.constant(ZERO);
             }
-            return Optional.empty();
-        }
-
-        IntStream indexesWithBitValue(Value value, B b){
-            IntStream.Builder ints = IntStream.builder();
-            int j = value.size() - 1;
-            while (j >= 1 && value.get(j).val() == b) {
-                ints.add(j);
-                j--;
+            return bl.create(U, new DependencySetImpl(deps));
+        }
+
+        /**
+         * Compares the ranges of the arguments that are implied by their known bits
+         *
+         * @return {@code null} if the ranges overlap
+         */
+        B decideByRange(Value x, Value y) {
+            int width = Math.min(Math.max(x.size(), y.size()), vl.bitWidth);
+            if (width > KnownBits.MAX_WIDTH) {
+                return null;
             }
-            return ints.build();
-        }
-
-        @Override
-        public DependencySet computeDataDependencies(int i, Value x, Value y, List<Lattices.B> computedBitValues) {
-            if (i > 1) {
-                return ds.bot();
+            KnownBits xBits = x.knownBits(width);
+            KnownBits yBits = y.knownBits(width);
+            if (xBits.max() < yBits.min()) {
+                return ONE;
             }
-            if (computedBitValues.get(0).isConstant()){
-                return ds.empty();
+            if (xBits.min() >= yBits.max()) {
+                return ZERO;
             }
-            return dependentBits.pop();
-        }
-        
-        @Override
-        ModsCreator computeModsCreator(int i, Bit r, Value x, Value y, List<B> bitValues, DependencySet dataDeps) {
-            return (c, b, a) -> Mods.empty();
+            return null;
         }
-    };
+    }
+
+    static final Comparator LESS = new Comparator("<", (a, b) -> a < b ? 1 : 0, false, false);
+
+    static final Comparator LESS_EQUALS = new Comparator("<=", (a, b) -> a <= b ? 1 : 0, true, true);
+
+    static final Comparator GREATER = new Comparator(">", (a, b) -> a > b ? 1 : 0, true, false);
+
+    static final Comparator GREATER_EQUALS = new Comparator(">=", (a, b) -> a >= b ? 1 : 0, false, true);
 
     static final BitWiseOperator PHI_GENERIC = new BitWiseOperatorStructured("phi") {
+
+        @Override
+        public boolean dependsOnlyOnArguments() {
+            return false;
+        }
     	
     	@Override
     	public Value compute(Context c, SDGNode node, List<Value> arguments) {
@@ -698,7 +844,7 @@ public interface Operator {
             DependencySet dataDeps = computeDataDependencies(bits, bitValue);
             Bit r = bl.create(bitValue, dataDeps);
             c.repl(r, computeModsCreator(r, dataDeps));
-            r.addDependencies(computeControlDeps(c, currentNode, bitValue, dataDeps));
+            r.addDependencies(computeControlDeps(c, currentNode.get(), bitValue, dataDeps));
             return r;
         }
 
@@ -745,7 +891,23 @@ public interface Operator {
 
     };
     
+    /**
+     * Are the ranges of the values that are implied by their known bits disjoint?
+     */
+    static boolean rangesAreDisjoint(Value x, Value y) {
+        int width = Math.min(Math.max(x.size(), y.size()), vl.bitWidth);
+        if (width > KnownBits.MAX_WIDTH) {
+            return false;
+        }
+        KnownBits xBits = x.knownBits(width);
+        KnownBits yBits = y.knownBits(width);
+        return xBits.max() < yBits.min() || yBits.max() < xBits.min();
+    }
+
     public static Bit wrapBit(Context c, Bit source) {
+        if (source.isInterned()) {
+            return source;
+        }
     	Bit wrap = bl.create(source.val(), ds.create(source));
     	c.repl(wrap, ((con, b, a) -> con.choose(b, a) == a ? new Mods(b, a).add(c.repl(source).apply(con, source, a)) : Mods.empty()));
     	return wrap;
@@ -781,23 +943,63 @@ public interface Operator {
         }
     }
 
-    static final BinaryOperator ADD = new BinaryOperator("+") {
+    /**
+     * Ripple carry adder
+     */
+    public static class Adder extends BinaryOperator {
+
+        Adder() {
+            super("+", (a, b) -> a + b);
+        }
+
         @Override
         Value compute(Context c, Value first, Value second) {
-        	Set<Bit> argBits = Stream.concat(first.stream(), second.stream()).collect(Collectors.toSet());
-            List<Bit> res = new ArrayList<>();
-            Box<Bit> carry = new Box<>(bl.create(ZERO));
+            return add(c, first, second, false);
+        }
+
+        /**
+         * Computes {@code first + second + carryIn}
+         */
+        Value add(Context c, Value first, Value second, boolean carryIn) {
+            if (vl.bitWidth <= KnownBits.MAX_WIDTH) {
+                return addWithKnownPrefix(c, first, second, carryIn);
+            }
+            Box<Bit> carry = new Box<>(bl.constant(carryIn ? ONE : ZERO));
             return vl.mapBitsToValue(first, second, (a, b) -> {
                 Pair<Bit, Bit> add = fullAdder(c, a, b, carry.val);
-                carry.val = add.second;
-                Bit ret = add.first;
-                //return new Bit(ret.val(), new Lattices.DependencySetImpl(ret.calculateReachedBits(argBits)));
-               //Pair<Bit, Bit> add = fullAdder(c, a, b, carry.val);
                 carry.val = add.second;
                 return add.first;
             }, vl.bitWidth);
         }
 
+        /**
+         * Computes the sum of the least significant bits that are known in both arguments
+         * natively and only uses the adder chain for the remaining bits
+         */
+        Value addWithKnownPrefix(Context c, Value first, Value second, boolean carryIn) {
+            int width = vl.bitWidth;
+            KnownBits x = first.knownBits(width);
+            KnownBits y = second.knownBits(width);
+            int prefix = Math.min(x.knownPrefix(), y.knownPrefix());
+            long carryInValue = carryIn ? 1 : 0;
+            long sum = x.value + y.value + carryInValue;
+            List<Bit> bits = new ArrayList<>(width);
+            for (int i = 1; i <= prefix; i++) {
+                bits.add(bl.constant((sum & (1L << (i - 1))) != 0 ? ONE : ZERO));
+            }
+            if (prefix < width) {
+                long lowMask = (1L << prefix) - 1;
+                long carryOut = ((x.value & lowMask) + (y.value & lowMask) + carryInValue) >>> prefix;
+                Bit carry = bl.constant(carryOut != 0 ? ONE : ZERO);
+                for (int i = prefix + 1; i <= width; i++) {
+                    Pair<Bit, Bit> add = fullAdder(c, first.get(i), second.get(i), carry);
+                    bits.add(add.first);
+                    carry = add.second;
+                }
+            }
+            return new Value(bits);
+        }
+
         Pair<Bit, Bit> fullAdder(Context context, Bit a, Bit b, Bit c) {
             Pair<Bit, Bit> pair = halfAdder(context, a, b);
             Pair<Bit, Bit> pair2 = halfAdder(context, pair.first, c);
@@ -808,9 +1010,28 @@ public interface Operator {
         Pair<Bit, Bit> halfAdder(Context context, Bit first, Bit second) {
             return new Pair<>(XOR.compute(context, first, second), AND.compute(context, first, second));
         }
+    }
+
+    static final Adder ADD = new Adder();
+
+    /**
+     * Computes {@code a - b} as {@code a + ~b + 1} with a single adder chain,
+     * the complement of constant bits of {@code b} does not create any bits
+     */
+    static final BinaryOperator SUBTRACT = new BinaryOperator("-", (a, b) -> a - b) {
+        @Override
+        Value compute(Context c, Value first, Value second) {
+            return ADD.add(c, first, NOT.compute(c, second), true);
+        }
     };
 
-    static final BinaryOperator LEFT_SHIFT = new BinaryOperator("<<") {
+    static final BinaryOperator LEFT_SHIFT = new BinaryOperator("<<", (a, b) -> a << b) {
+
+        @Override
+        boolean canFold(int first, int second) {
+            return second >= 0 && second < vl.constantWidth();
+        }
+
         @Override
         Value compute(Context c, Value first, Value second) {
             if (second.isConstant()){
@@ -823,16 +1044,21 @@ public interface Operator {
                 }
                 return IntStream.range(1, c.maxBitWidth + 1).mapToObj(i -> {
                     if (i - shift < 1){
-                        return bl.create(ZERO);
+                        return bl.constant(ZERO);
                     }
                     return first.get(i - shift);
                 }).collect(Value.collector());
             }
-            return createUnknownValue(first, second);
+            return createUnknownValue(c, first, second);
         }
     };
 
-    static final BinaryOperator RIGHT_SHIFT = new BinaryOperator(">>") {
+    static final BinaryOperator RIGHT_SHIFT = new BinaryOperator(">>", (a, b) -> (a & widthMask()) >>> b) {
+
+        @Override
+        boolean canFold(int first, int second) {
+            return second >= 0 && second < vl.constantWidth();
+        }
 
 
         @Override
@@ -844,15 +1070,22 @@ public interface Operator {
                 }
                 return IntStream.range(1, c.maxBitWidth + 1).mapToObj(i -> {
                     if (i + shift > c.maxBitWidth){
-                        return bl.create(ZERO);
+                        return bl.constant(ZERO);
                     }
                     return first.get(i + shift);
                 }).collect(Value.collector());
             }
-            return createUnknownValue(first, second);
+            return createUnknownValue(c, first, second);
         }
     };
 
+    /**
+     * Mask of the bits of the values returned by {@link Lattices.ValueLattice#constant(int)}
+     */
+    static int widthMask(){
+        return vl.constantWidth() == Integer.SIZE ? -1 : (1 << vl.constantWidth()) - 1;
+    }
+
     static Value setMultSign(Value first, Value second, Value result){
         assert second.isConstant();
         Bit sign = null;
@@ -867,13 +1100,32 @@ public interface Operator {
         return IntStream.range(1, result.size() + 1).mapToObj(i -> i == result.size() ? _sign : result.get(i)).collect(Value.collector());
     }
 
-    static Value createUnknownValue(Value... deps){
+    static Value createUnknownValue(Context c, Value... deps){
         int size = Stream.of(deps).mapToInt(Value::size).max().getAsInt();
         DependencySet depBits = Stream.of(deps).flatMap(Value::stream).filter(Bit::isUnknown).collect(DependencySet.collector());
-        return IntStream.range(0, size).mapToObj(i -> bl.create(U, depBits)).collect(Value.collector());
+        return createUnknownValue(c, size, depBits);
     }
 
-    static final BinaryOperator MULTIPLY = new BinaryOperator("+") {
+    /**
+     * Creates a value of unknown bits that each depend on all passed bits.
+     * <p/>
+     * If this requires more edges than using an intermediate hub bit, the result bits
+     * only depend on a hub bit with infinite weight that depends on the passed bits. The leakage
+     * stays the same, as the hub cannot be part of a minimal cut, but the bit graph has only
+     * {@code size + depBits.size()} instead of {@code size * depBits.size()} edges.
+     */
+    public static Value createUnknownValue(Context c, int size, DependencySet depBits){
+        DependencySet resultDeps = depBits;
+        if (size > 1 && depBits.size() > 1 && size * depBits.size() > size + depBits.size()){
+            Bit hub = bl.create(U, depBits);
+            c.weight(hub, Context.INFTY);
+            resultDeps = ds.create(hub);
+        }
+        DependencySet _resultDeps = resultDeps;
+        return IntStream.range(0, size).mapToObj(i -> bl.create(U, _resultDeps.copy())).collect(Value.collector());
+    }
+
+    static final BinaryOperator MULTIPLY = new BinaryOperator("*", (a, b) -> a * b) {
         @Override
         Value compute(Context c, Value first, Value second) {
             if (second.isPowerOfTwo()){
@@ -885,27 +1137,33 @@ public interface Operator {
             if (first.isConstant() && second.isConstant()){
                 return vl.parse(first.asInt() * second.asInt());
             }
-            return createUnknownValue(first, second);
+            return createUnknownValue(c, first, second);
         }
     };
 
-    static final BinaryOperator DIVIDE = new BinaryOperator("+") {
+    static final BinaryOperator DIVIDE = new BinaryOperator("/", (a, b) -> a / b) {
+
+        @Override
+        boolean canFold(int first, int second) {
+            return second != 0;
+        }
+
         @Override
         Value compute(Context c, Value first, Value second) {
             if (second.isPowerOfTwo()){
                 return setMultSign(first, second, RIGHT_SHIFT.compute(c, first, vl.parse((int)log2(second.asInt()))));
             }
-            if (first.isPowerOfTwo()){
-                return DIVIDE.compute(c, second, first);
-            }
-            if (first.isConstant() && second.isConstant()){
-                return vl.parse(first.asInt() * second.asInt());
-            }
-            return createUnknownValue(first, second);
+            return createUnknownValue(c, first, second);
         }
     };
 
-    static final BinaryOperator MODULO = new BinaryOperator("+") {
+    static final BinaryOperator MODULO = new BinaryOperator("%", (a, b) -> a % b) {
+
+        @Override
+        boolean canFold(int first, int second) {
+            return second != 0;
+        }
+
         @Override
         Value compute(Context c, Value first, Value second) {
             if (second.isPowerOfTwo() && !second.isNegative()){
@@ -916,14 +1174,16 @@ public interface Operator {
                     return first.get(i);
                 }).collect(Value.collector());
             }
-            if (first.isConstant() && second.isConstant()){
-                return vl.parse(first.asInt() % second.asInt());
-            }
-            return createUnknownValue(first, second);
+            return createUnknownValue(c, first, second);
         }
     };
     
     static final UnaryOperator RETURN = new UnaryOperator("ret") {
+
+        @Override
+        public boolean dependsOnlyOnArguments() {
+            return false;
+        }
 		
 		@Override
 		Value compute(Context c, Value argument) {
@@ -940,5 +1200,13 @@ public interface Operator {
         return compute(c, arguments);
     }
 
+    /**
+     * Does the result only depend on the arguments and not on the state of the context?
+     * Such results are equivalent for equal arguments.
+     */
+    default boolean dependsOnlyOnArguments(){
+        return true;
+    }
+
     public String toString(List<Value> arguments);
 }
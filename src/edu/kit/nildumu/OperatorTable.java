@@ -0,0 +1,81 @@
+package edu.kit.nildumu;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.ibm.wala.shrikeBT.IBinaryOpInstruction;
+import com.ibm.wala.shrikeBT.IConditionalBranchInstruction;
+import com.ibm.wala.shrikeBT.IShiftInstruction;
+import com.ibm.wala.shrikeBT.IUnaryOpInstruction;
+import com.ibm.wala.ssa.SSABinaryOpInstruction;
+import com.ibm.wala.ssa.SSAConditionalBranchInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.ssa.SSAReturnInstruction;
+import com.ibm.wala.ssa.SSAUnaryOpInstruction;
+
+/**
+ * Maps the opcodes of SSA instructions to the operators that evaluate them
+ */
+class OperatorTable {
+
+    private static final Map<IBinaryOpInstruction.Operator, Operator> BINARY = new EnumMap<>(IBinaryOpInstruction.Operator.class);
+
+    private static final Map<IShiftInstruction.Operator, Operator> SHIFT = new EnumMap<>(IShiftInstruction.Operator.class);
+
+    private static final Map<IUnaryOpInstruction.Operator, Operator> UNARY = new EnumMap<>(IUnaryOpInstruction.Operator.class);
+
+    private static final Map<IConditionalBranchInstruction.Operator, Operator> CONDITIONAL = new EnumMap<>(IConditionalBranchInstruction.Operator.class);
+
+    static {
+        BINARY.put(IBinaryOpInstruction.Operator.OR, Operator.OR);
+        BINARY.put(IBinaryOpInstruction.Operator.ADD, Operator.ADD);
+        BINARY.put(IBinaryOpInstruction.Operator.AND, Operator.AND);
+        BINARY.put(IBinaryOpInstruction.Operator.DIV, Operator.DIVIDE);
+        BINARY.put(IBinaryOpInstruction.Operator.MUL, Operator.MULTIPLY);
+        BINARY.put(IBinaryOpInstruction.Operator.REM, Operator.MODULO);
+        BINARY.put(IBinaryOpInstruction.Operator.SUB, Operator.SUBTRACT);
+        BINARY.put(IBinaryOpInstruction.Operator.XOR, Operator.XOR);
+
+        SHIFT.put(IShiftInstruction.Operator.SHL, Operator.LEFT_SHIFT);
+        SHIFT.put(IShiftInstruction.Operator.SHR, Operator.RIGHT_SHIFT);
+
+        UNARY.put(IUnaryOpInstruction.Operator.NEG, Operator.NOT);
+
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.EQ, Operator.EQUALS);
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.GE, Operator.GREATER_EQUALS);
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.GT, Operator.GREATER);
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.LE, Operator.LESS_EQUALS);
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.LT, Operator.LESS);
+        CONDITIONAL.put(IConditionalBranchInstruction.Operator.NE, Operator.UNEQUALS);
+    }
+
+    private OperatorTable() {
+    }
+
+    /**
+     * Returns the operator for the instruction or {@code null} if there is none
+     */
+    static Operator forInstruction(SSAInstruction instr) {
+        if (instr instanceof SSABinaryOpInstruction) {
+            IBinaryOpInstruction.IOperator op = ((SSABinaryOpInstruction) instr).getOperator();
+            if (op instanceof IShiftInstruction.Operator) {
+                return SHIFT.get(op);
+            }
+            return BINARY.get(op);
+        }
+        if (instr instanceof SSAUnaryOpInstruction) {
+            return UNARY.get(((SSAUnaryOpInstruction) instr).getOpcode());
+        }
+        if (instr instanceof SSAConditionalBranchInstruction) {
+            return CONDITIONAL.get(((SSAConditionalBranchInstruction) instr).getOperator());
+        }
+        if (instr instanceof SSAPhiInstruction) {
+            return Operator.PHI_GENERIC;
+        }
+        if (instr instanceof SSAReturnInstruction) {
+            return Operator.RETURN;
+        }
+        return null;
+    }
+}
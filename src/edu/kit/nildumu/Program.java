@@ -16,6 +16,7 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -141,8 +142,10 @@ public class Program {
 			    defaultConfig;
 		this.intWidth = config.intWidth();
 		this.context = new Context(this);
-		check();
-		initContext();
+		context.bitIdAllocator().runBound(() -> {
+			check();
+			initContext();
+		});
 	}
 
 	private void initContext(){
@@ -599,10 +602,30 @@ public class Program {
 	private final DefaultMap<SDGNode, SSAInstruction> nodeToInstr = 
 			new DefaultMap<>((map, node) -> getPDG(node).getInstruction(getPDGNode(node)));
 	
-	public SSAInstruction getInstruction(SDGNode node) {
+	private final Map<SDGNode, Optional<Operator>> nodeToOperator = new ConcurrentHashMap<>();
+	
+	public synchronized SSAInstruction getInstruction(SDGNode node) {
 		return nodeToInstr.get(node);
 	}
 	
+	/**
+	 * Returns the operator that evaluates the node, it is resolved once per node
+	 * 
+	 * @return null for return nodes without instruction
+	 */
+	public Operator getOperator(SDGNode node) {
+		return nodeToOperator.computeIfAbsent(node, n -> {
+			if (n.getLabel().equals("return")) {
+				return Optional.empty();
+			}
+			Operator op = OperatorTable.forInstruction(getInstruction(n));
+			if (op == null) {
+				throw new NildumuException(String.format("No operator for %s implemented", Program.toString(n)));
+			}
+			return Optional.of(op);
+		}).orElse(null);
+	}
+	
 	public PDGNode getPDGNode(SDGNode node) {
 		return getPDG(node).getNodeWithId(node.getId());
 	}
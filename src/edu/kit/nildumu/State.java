@@ -48,4 +48,11 @@ class State {
     public void setReturnValue(Value value){
         this.returnValue = value;
     }
+
+    public State copy(){
+        State state = new State();
+        state.map.putAll(map);
+        state.returnValue = returnValue;
+        return state;
+    }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package edu.kit.nildumu.interproc;
 
 import static edu.kit.nildumu.Context.INFTY;
-import static edu.kit.nildumu.Context.d;
 import static edu.kit.nildumu.Context.v;
 import static edu.kit.nildumu.Lattices.bl;
 import static edu.kit.nildumu.Lattices.vl;
@@ -11,6 +10,7 @@ import static edu.kit.nildumu.util.Util.p;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -21,13 +21,14 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import edu.kit.nildumu.BitArena;
+import edu.kit.nildumu.BitTraversal;
 import edu.kit.nildumu.Context;
 import edu.kit.nildumu.DotRegistry;
 import edu.kit.nildumu.MinCut;
 import edu.kit.nildumu.Lattices.Bit;
 import edu.kit.nildumu.Lattices.DependencySet;
 import edu.kit.nildumu.Lattices.Value;
-import edu.kit.nildumu.util.DefaultMap;
 import edu.kit.nildumu.util.Pair;
 import guru.nidi.graphviz.engine.Format;
 import guru.nidi.graphviz.engine.Graphviz;
@@ -50,6 +51,20 @@ class BitGraph {
 
     final List<Integer> paramBitsPerReturnValue;
 
+    /**
+     * Bits reachable from the return bits, without the dependencies of the parameter bits
+     */
+    private BitArena arena;
+
+    /**
+     * Color of each bit of the arena, see {@link #colors()}
+     */
+    private long[] colors;
+
+    private Set<Bit> summaryMinCutBits;
+
+    private SummaryTemplate template;
+
     BitGraph(Context context, List<Value> parameters, Value returnValue) {
         this.context = context;
         this.parameters = parameters;
@@ -89,57 +104,31 @@ class BitGraph {
     }
 
     /**
-     * Applies the function graph to concrete arguments
+     * Applies the function graph to concrete arguments, using the compiled {@link SummaryTemplate}
      */
-    public Value applyToArgs(Context context, List<Value> arguments){
-        List<Value> extendedArguments = arguments;
-        Map<Bit, Bit> newBits = new HashMap<>();
-        // populate
-        vl.walkBits(returnValue, bit -> {
-            if (parameterBits.contains(bit)){
-                Pair<Integer, Integer> loc = bitInfo.get(bit);
-                Bit argBit = extendedArguments.get(loc.first).get(loc.second);
-                newBits.put(bit, argBit);
-            } else {
-                Bit clone = cloneBit(context, bit, d(bit));
-                clone.value(bit.value());
-                newBits.put(bit, clone);
-            }
-        });
-        DefaultMap<Value, Value> newValues = new DefaultMap<Value, Value>((map, value) -> {
-            if (parameters.contains(value)){
-                return arguments.get(parameters.indexOf(value));
-            }
-            Value clone = value.map(b -> {
-                if (!parameterBits.contains(b)) {
-                    return newBits.get(b);
-                }
-                return b;
-            });
-            clone.node(value.node());
-            return value;
-        });
-        // update dependencies
-        newBits.forEach((old, b) -> {
-            if (!parameterBits.contains(old)) {
-                b.alterDependencies(newBits::get);
-            }
-            //b.value(old.value());
-        });
-        return returnValue.map(newBits::get);
+    public Value applyToArgs(List<Value> arguments){
+        return template().instantiate(arguments);
+    }
+
+    synchronized SummaryTemplate template(){
+        if (template == null){
+            template = SummaryTemplate.compile(this);
+        }
+        return template;
+    }
+
+    /**
+     * Returns the parameter number and index of the bit or {@code null} if it isn't a parameter bit
+     */
+    Pair<Integer, Integer> parameterLocation(Bit bit){
+        return bitInfo.get(bit);
     }
 
     /**
      * Returns the bit of the passed set that are reachable from the bit
      */
     public Set<Bit> calcReachableBits(Bit bit, Set<Bit> bits){
-        Set<Bit> reachableBits = new HashSet<>();
-        bl.walkBits(bit, b -> {
-            if (bits.contains(b)){
-                reachableBits.add(b);
-            }
-        }, b -> false);
-        return reachableBits;
+        return BitTraversal.get().reachableBitsOf(bit, bits);
     }
 
     /**
@@ -154,11 +143,147 @@ class BitGraph {
     }
 
     public Set<Bit> minCutBits(Set<Bit> outputBits, Set<Bit> inputBits){
-        return MinCut.compute(outputBits, inputBits, context::weight).minCut;
+        return MinCut.compute(context, outputBits, inputBits, context::weight).minCut;
     }
 
     public Set<Bit> minCutBits(Set<Bit> outputBits, Set<Bit> inputBits, int outputWeight){
-        return MinCut.compute(outputBits, inputBits, b -> outputBits.contains(b) ? outputWeight : context.weight(b)).minCut;
+        return MinCut.compute(context, outputBits, inputBits, b -> outputBits.contains(b) ? outputWeight : context.weight(b)).minCut;
+    }
+
+    /**
+     * Min cut between the return bits (with infinite weight) and the parameter bits,
+     * computed only once per graph
+     */
+    Set<Bit> summaryMinCutBits(){
+        if (summaryMinCutBits == null){
+            summaryMinCutBits = minCutBits(returnValue.bitSet(), parameterBits, INFTY);
+        }
+        return summaryMinCutBits;
+    }
+
+    void summaryMinCutBits(Set<Bit> minCutBits){
+        this.summaryMinCutBits = minCutBits;
+    }
+
+    synchronized BitArena arena(){
+        if (arena == null){
+            arena = BitArena.create(returnValue.stream().collect(Collectors.toList()),
+                    b -> !parameterBits.contains(b), context::weight);
+        }
+        return arena;
+    }
+
+    /**
+     * Colors the bits of the arena by color refinement: bits start with a color based on their value,
+     * weight and their position in the parameters and the return value, the color of a bit is then
+     * refined with the colors of its dependencies till the number of colors stays the same.
+     * Bits with the same color are structurally indistinguishable.
+     */
+    long[] colors(){
+        if (colors != null){
+            return colors;
+        }
+        BitArena arena = arena();
+        Map<Bit, List<Integer>> returnPositions = new HashMap<>();
+        for (int i = 1; i <= returnValue.size(); i++) {
+            returnPositions.computeIfAbsent(returnValue.get(i), b -> new ArrayList<>()).add(i);
+        }
+        long[] cur = new long[arena.size()];
+        for (int i = 0; i < cur.length; i++) {
+            Bit bit = arena.bit(i);
+            Pair<Integer, Integer> loc = bitInfo.get(bit);
+            long color = mix(arena.val(i).ordinal() * 2 + (arena.hasInfiniteWeight(i) ? 1 : 0));
+            color = mix(color + (loc == null ? -1 : loc.first * 0x10000L + loc.second));
+            color = mix(color + returnPositions.getOrDefault(bit, Collections.emptyList()).hashCode());
+            cur[i] = color;
+        }
+        int[] deps = arena.deps();
+        long numberOfColors = Arrays.stream(cur).distinct().count();
+        for (int round = 0; round < cur.length; round++) {
+            long[] next = new long[cur.length];
+            for (int i = 0; i < cur.length; i++) {
+                long depColors = 0;
+                for (int j = arena.depStart(i); j < arena.depEnd(i); j++) {
+                    depColors += mix(cur[deps[j]]);
+                }
+                next[i] = mix(cur[i] * 31 + depColors);
+            }
+            cur = next;
+            long newNumberOfColors = Arrays.stream(cur).distinct().count();
+            if (newNumberOfColors == numberOfColors){
+                break;
+            }
+            numberOfColors = newNumberOfColors;
+        }
+        colors = cur;
+        return colors;
+    }
+
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Structural fingerprint of the graph: structurally equal graphs have the same fingerprint,
+     * regardless of the identity of their bits
+     */
+    long fingerprint(){
+        long[] colors = colors();
+        long fingerprint = mix(arena().size() * 31L + arena().numberOfDependencies());
+        for (Bit bit : returnValue) {
+            fingerprint = mix(fingerprint * 31 + colors[arena().indexOf(bit)]);
+        }
+        long colorSum = 0;
+        for (long color : colors) {
+            colorSum += mix(color);
+        }
+        return mix(fingerprint + colorSum);
+    }
+
+    /**
+     * Returns the colors of the passed bits or {@code null} if the bits don't contain every bit
+     * of their colors, as the colors could then not be mapped back
+     */
+    Set<Long> colorsOf(Set<Bit> bits){
+        long[] colors = colors();
+        Set<Long> bitColors = new HashSet<>();
+        for (Bit bit : bits) {
+            int index = arena().indexOf(bit);
+            if (index == -1){
+                return null;
+            }
+            bitColors.add(colors[index]);
+        }
+        for (int i = 0; i < colors.length; i++) {
+            if (bitColors.contains(colors[i]) && !bits.contains(arena().bit(i))){
+                return null;
+            }
+        }
+        return bitColors;
+    }
+
+    /**
+     * Returns all bits that have one of the passed colors
+     */
+    Set<Bit> bitsWithColors(Set<Long> bitColors){
+        long[] colors = colors();
+        Set<Bit> bits = new HashSet<>();
+        for (int i = 0; i < colors.length; i++) {
+            if (bitColors.contains(colors[i])){
+                bits.add(arena().bit(i));
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Does every path from a return bit to a parameter bit pass through one of the passed bits?
+     */
+    boolean separatesReturnFromParameters(Set<Bit> bits){
+        List<Bit> starts = returnValue.stream().filter(b -> !bits.contains(b)).collect(Collectors.toList());
+        return BitTraversal.get().walk(starts, b -> !parameterBits.contains(b), b -> true, b -> !bits.contains(b));
     }
 
     Graph createDotGraph(String name, boolean withMinCut){
@@ -166,7 +291,7 @@ class BitGraph {
                 .mapToObj(i -> new DotRegistry.Anchor(String.format("param %d", i), parameters.get(i))
                 ).collect(Collectors.toList()),
                 new DotRegistry.Anchor("return", returnValue),
-                withMinCut ? minCutBits(returnValue.bitSet(), parameterBits, INFTY) : Collections.emptySet());
+                withMinCut ? summaryMinCutBits() : Collections.emptySet());
     }
 
     public void writeDotGraph(Path folder, String name, boolean withMinCut){
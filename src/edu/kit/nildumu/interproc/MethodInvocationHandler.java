@@ -1,8 +1,6 @@
 package edu.kit.nildumu.interproc;
 
-import static edu.kit.nildumu.Lattices.bl;
 import static edu.kit.nildumu.Lattices.vl;
-import static edu.kit.nildumu.Lattices.B.U;
 import static edu.kit.nildumu.util.Util.p;
 
 import java.nio.file.Path;
@@ -15,14 +13,15 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.nildumu.Context;
 import edu.kit.nildumu.Lattices;
+import edu.kit.nildumu.Lattices.Bit;
 import edu.kit.nildumu.Lattices.DependencySet;
 import edu.kit.nildumu.Lattices.Value;
 import edu.kit.nildumu.Method;
+import edu.kit.nildumu.Operator;
 import edu.kit.nildumu.Program;
 import edu.kit.nildumu.util.Pair;
 
@@ -70,7 +69,7 @@ public abstract class MethodInvocationHandler {
     
     public static MethodInvocationHandler parseAndSetup(Program program, String props){
     	MethodInvocationHandler handler = parse(props);
-    	handler.setup(program);
+    	program.context.bitIdAllocator().runBound(() -> handler.setup(program));
     	return handler;
     }
 
@@ -85,8 +84,8 @@ public abstract class MethodInvocationHandler {
                 if (arguments.isEmpty() || !callSite.method.hasReturnValue()){
                     return vl.bot();
                 }
-                DependencySet set = arguments.stream().flatMap(Value::stream).collect(DependencySet.collector());
-                return IntStream.range(0, arguments.stream().mapToInt(Value::size).max().getAsInt()).mapToObj(i -> bl.create(U, set)).collect(Value.collector());
+                DependencySet set = arguments.stream().flatMap(Value::stream).filter(Bit::isUnknown).collect(DependencySet.collector());
+                return Operator.createUnknownValue(c, arguments.stream().mapToInt(Value::size).max().getAsInt(), set);
             }
             
             public String getName() {
@@ -100,10 +99,12 @@ public abstract class MethodInvocationHandler {
         examplePropLines.add("handler=inlining;maxrec=2;bot=all");
         examplePropLines.add("handler=inlining;maxrec=2;bot=summary");
         Consumer<HandlerConfigSchema> propSchemeCreator = s ->
-                s.add("reduction", "mincut").add("dot", "").add("csmaxrec", "2");
+                s.add("reduction", "mincut").add("dot", "").add("csmaxrec", "2").add("parallelism", "1").add("store", "");
         register("summary", propSchemeCreator, ps -> {
             Path dotFolder = ps.getProperty("dot").equals("") ? null : Paths.get(ps.getProperty("dot"));
-            return new SummaryHandler(dotFolder, SummaryHandler.Reduction.valueOf(ps.getProperty("reduction").toUpperCase()), Integer.parseInt(ps.getProperty("csmaxrec")));
+            return new SummaryHandler(dotFolder, SummaryHandler.Reduction.valueOf(ps.getProperty("reduction").toUpperCase()), Integer.parseInt(ps.getProperty("csmaxrec")),
+                    Integer.parseInt(ps.getProperty("parallelism")),
+                    ps.getProperty("store").equals("") ? null : Paths.get(ps.getProperty("store")));
         });
         examplePropLines.add("handler=summary;reduction=basic");
         examplePropLines.add("handler=summary;reduction=mincut");
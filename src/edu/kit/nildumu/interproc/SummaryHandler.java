@@ -1,15 +1,23 @@
 package edu.kit.nildumu.interproc;
 
-import static edu.kit.nildumu.Context.INFTY;
 import static edu.kit.nildumu.Lattices.ds;
 import static edu.kit.nildumu.BasicLogger.log;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -23,7 +31,7 @@ import edu.kit.nildumu.Lattices.Value;
 import edu.kit.nildumu.Method;
 import edu.kit.nildumu.Program;
 import edu.kit.nildumu.util.DefaultMap;
-import edu.kit.nildumu.util.Util.Box;
+import edu.kit.nildumu.util.NildumuException;
 
 /**
  * A summary-edge based handler. It creates for each function beforehand summary edges:
@@ -44,6 +52,9 @@ import edu.kit.nildumu.util.Util.Box;
  * depend upon.
  * And improved version (mincut reduction) includes the minimal cut bits of the bit graph from
  * the return to the parameter bits, assuming that the return bits have infinite weights.
+ * <p/>
+ * The reduced graphs can be persisted in a {@link SummaryStore}, methods that did not change
+ * since the last run are then not summarized again.
  */
 public class SummaryHandler extends MethodInvocationHandler {
 
@@ -64,7 +75,52 @@ public class SummaryHandler extends MethodInvocationHandler {
     
     Map<Method, CallSite> callSites;
 
+    /**
+     * Min cut of the last bit graph of a method, stored by the colors of its bits
+     */
+    private static class CachedMinCut {
+        final long fingerprint;
+        final Set<Long> colors;
+        final int size;
+
+        CachedMinCut(long fingerprint, Set<Long> colors, int size) {
+            this.fingerprint = fingerprint;
+            this.colors = colors;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Min cut of the last bit graph of each method, structurally equal graphs of later iterations
+     * reuse the min cut
+     */
+    private final Map<Method, CachedMinCut> minCutCache = new ConcurrentHashMap<>();
+
+    private final AtomicInteger minCutCacheHits = new AtomicInteger();
+
+    /**
+     * Number of threads that summarize independent parts of the call graph
+     */
+    final int parallelism;
+
+    /**
+     * Folder of the {@link SummaryStore}, might be {@code null}
+     */
+    final Path storeFolder;
+
+    /**
+     * Graphs of the methods that were loaded from the store and are not summarized again
+     */
+    Map<Method, BitGraph> storedGraphs = Collections.emptyMap();
+
     public SummaryHandler(Path dotFolder, SummaryHandler.Reduction reductionMode, int callStringMaxRec) {
+        this(dotFolder, reductionMode, callStringMaxRec, 1, null);
+    }
+
+    public SummaryHandler(Path dotFolder, SummaryHandler.Reduction reductionMode, int callStringMaxRec, int parallelism,
+                          Path storeFolder) {
+        this.parallelism = parallelism;
+        this.storeFolder = storeFolder;
         this.reductionMode = reductionMode;
         this.callStringMaxRec = callStringMaxRec;
         this.dotFolder = dotFolder;
@@ -73,46 +129,162 @@ public class SummaryHandler extends MethodInvocationHandler {
     @Override
     public void setup(Program program) {
         callGraph = program.getMethodDominators();
-        callSites = new DefaultMap<Method, CallSite>((map, m) -> {
-        	return new CallSite(m);
-        });
+        callSites = new ConcurrentHashMap<>();
         DotRegistry.get().storeFiles();
+        SummaryStore store = storeFolder == null ? null :
+                new SummaryStore(storeFolder, program.intWidth, reductionMode, callStringMaxRec);
+        Map<Method, String> keys = store == null ? Collections.emptyMap() : store.keys(callGraph);
+        storedGraphs = new HashMap<>();
+        keys.forEach((method, key) -> {
+            BitGraph graph = store.load(program.context, key, generateParameters(program, method));
+            if (graph != null){
+                storedGraphs.put(method, graph);
+            }
+        });
+        if (parallelism > 1){
+            parallelSetup(program);
+        } else {
+            sequentialSetup(program);
+        }
+        if (store != null){
+            methodGraphs.forEach((method, graph) -> {
+                if (!storedGraphs.containsKey(method) && keys.containsKey(method)){
+                    store.store(keys.get(method), graph);
+                }
+            });
+        }
+    }
+
+    private void sequentialSetup(Program program){
         Context c = program.context;
         Map<Node<Method>, BitGraph> state = new HashMap<>();
         MethodInvocationHandler handler = createHandler(m -> state.get(callGraph.getNodeForElement(m)));
-        Box<Integer> iteration = new Box<>(0);
+        AtomicInteger iteration = new AtomicInteger();
         callGraph.<BitGraph>worklist((node, s) -> {
-            if (node.isEntryNode()){
+            if (node.isEntryNode() || storedGraphs.containsKey(node.getElem())){
                 return s.get(node);
             }
-            iteration.val += 1;
-            BitGraph graph = methodIteration(program.context, node.getElem(), handler, s.get(node).parameters);
-            String name = String.format("%3d %s", iteration.val, node.getElem().toBCString());
-            if (dotFolder != null){
-                graph.writeDotGraph(dotFolder, name, true);
+            return summarize(c, node.getElem(), handler, s.get(node).parameters, iteration.incrementAndGet());
+        }, node -> storedGraphs.containsKey(node.getElem()) ? storedGraphs.get(node.getElem()) :
+                bot(program, node.getElem(), iteration.get())
+        , node -> node.getIns().stream().filter(n -> !n.isEntryNode()).collect(Collectors.toSet()),
+        state);
+        methodGraphs = state.entrySet().stream().collect(Collectors.toMap(e -> e.getKey().getElem(), Map.Entry::getValue));
+    }
+
+    /**
+     * Condenses the call graph into its strongly connected components and summarizes them bottom-up:
+     * the components of each level only call methods of lower levels and are summarized in parallel,
+     * each with its own fork of the context
+     */
+    private void parallelSetup(Program program){
+        List<Set<Node<Method>>> components = callGraph.stronglyConnectedComponents();
+        Map<Set<Node<Method>>, Integer> levels = new HashMap<>();
+        Map<Node<Method>, Set<Node<Method>>> componentOfNode = new HashMap<>();
+        List<List<Set<Node<Method>>>> componentsPerLevel = new ArrayList<>();
+        for (Set<Node<Method>> component : components) { // callees come first
+            component.forEach(n -> componentOfNode.put(n, component));
+            int level = component.stream().flatMap(n -> n.getOuts().stream())
+                    .map(componentOfNode::get).filter(o -> o != component)
+                    .mapToInt(levels::get).max().orElse(-1) + 1;
+            levels.put(component, level);
+            if (componentsPerLevel.size() == level){
+                componentsPerLevel.add(new ArrayList<>());
+            }
+            componentsPerLevel.get(level).add(component);
+        }
+        Map<Node<Method>, BitGraph> state = new ConcurrentHashMap<>();
+        AtomicInteger iteration = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (List<Set<Node<Method>>> level : componentsPerLevel) {
+                List<Callable<Void>> tasks = level.stream().map(component -> (Callable<Void>) () -> {
+                    summarize(program, forkContext(program.context), component, state, iteration);
+                    return null;
+                }).collect(Collectors.toList());
+                for (Future<Void> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
             }
-            DotRegistry.get().store("summary", name,
-                    () -> () -> graph.createDotGraph("", true));
-            BitGraph reducedGraph = reduce(c, graph);
-            if (dotFolder != null){
-                graph.writeDotGraph(dotFolder, name + " [reduced]", false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NildumuException("Interrupted while computing the summaries");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException)e.getCause();
             }
-            DotRegistry.get().store("summary",  name + " [reduced]",
-                    () -> () -> reducedGraph.createDotGraph("", false));
-            return reducedGraph;
-        }, node ->  {
-            BitGraph graph = bot(program, node.getElem());
-            String name = String.format("%3d %s", iteration.val, node.getElem().toBCString());
-            if (dotFolder != null){
-                graph.writeDotGraph(dotFolder, name, false);
+            throw new NildumuException(e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        methodGraphs = state.entrySet().stream().filter(e -> !e.getKey().isEntryNode())
+                .collect(Collectors.toMap(e -> e.getKey().getElem(), Map.Entry::getValue));
+    }
+
+    private static Context forkContext(Context context){
+        synchronized (context){
+            return context.fork();
+        }
+    }
+
+    /**
+     * Summarizes the methods of a strongly connected component of the call graph, the methods that
+     * they call outside of the component have to be summarized before
+     */
+    private void summarize(Program program, Context c, Set<Node<Method>> component,
+                           Map<Node<Method>, BitGraph> state, AtomicInteger iteration){
+        if (component.stream().allMatch(n -> storedGraphs.containsKey(n.getElem()))){
+            component.forEach(n -> state.put(n, storedGraphs.get(n.getElem())));
+            return;
+        }
+        c.bitIdAllocator().runBound(() -> {
+            MethodInvocationHandler handler = createHandler(m -> state.get(callGraph.getNodeForElement(m)));
+            component.forEach(n -> state.put(n, bot(program, n.getElem(), iteration.get())));
+            Set<Node<Method>> queue = new LinkedHashSet<>(component);
+            while (!queue.isEmpty()){
+                Node<Method> node = queue.iterator().next();
+                queue.remove(node);
+                if (node.isEntryNode()){
+                    continue;
+                }
+                BitGraph graph = summarize(c, node.getElem(), handler, state.get(node).parameters, iteration.incrementAndGet());
+                if (!state.get(node).equals(graph)){
+                    state.put(node, graph);
+                    node.getIns().stream().filter(component::contains).forEach(queue::add);
+                }
             }
-            DotRegistry.get().store("summary", name,
-                    () -> () -> graph.createDotGraph("", false));
-            return graph;
+        });
+    }
+
+    /**
+     * Analyzes the method with the current summaries of the called methods and reduces the resulting graph
+     */
+    private BitGraph summarize(Context c, Method method, MethodInvocationHandler handler, List<Value> parameters, int iteration){
+        BitGraph graph = methodIteration(c, method, handler, parameters);
+        String name = String.format("%3d %s", iteration, method.toBCString());
+        if (dotFolder != null){
+            graph.writeDotGraph(dotFolder, name, true);
         }
-        , node -> node.getIns().stream().filter(n -> !n.isEntryNode()).collect(Collectors.toSet()),
-        state);
-        methodGraphs = state.entrySet().stream().collect(Collectors.toMap(e -> e.getKey().getElem(), Map.Entry::getValue));
+        DotRegistry.get().store("summary", name,
+                () -> () -> graph.createDotGraph("", true));
+        BitGraph reducedGraph = reduce(c, method, graph);
+        if (dotFolder != null){
+            graph.writeDotGraph(dotFolder, name + " [reduced]", false);
+        }
+        DotRegistry.get().store("summary",  name + " [reduced]",
+                () -> () -> reducedGraph.createDotGraph("", false));
+        return reducedGraph;
+    }
+
+    private BitGraph bot(Program program, Method method, int iteration){
+        BitGraph graph = bot(program, method);
+        String name = String.format("%3d %s", iteration, method.toBCString());
+        if (dotFolder != null){
+            graph.writeDotGraph(dotFolder, name, false);
+        }
+        DotRegistry.get().store("summary", name,
+                () -> () -> graph.createDotGraph("", false));
+        return graph;
     }
 
     BitGraph bot(Program program, Method method){
@@ -128,7 +300,7 @@ public class SummaryHandler extends MethodInvocationHandler {
     }
 
     BitGraph methodIteration(Context c, Method method, MethodInvocationHandler handler, List<Value> parameters){
-        c.pushNewMethodInvocationState(callSites.get(method), parameters.stream().flatMap(Value::stream).collect(Collectors.toSet()));
+        c.pushNewMethodInvocationState(callSites.computeIfAbsent(method, CallSite::new), parameters.stream().flatMap(Value::stream).collect(Collectors.toSet()));
         for (int i = 0; i < parameters.size(); i++) {
             c.setParamValue(i + 1, parameters.get(i));
         }
@@ -144,7 +316,7 @@ public class SummaryHandler extends MethodInvocationHandler {
     	MethodInvocationHandler handler = new MethodInvocationHandler() {
             @Override
             public Value analyze(Context c, CallSite callSite, List<Value> arguments) {
-                return curVersion.apply(callSite.method).applyToArgs(c, arguments);
+                return curVersion.apply(callSite.method).applyToArgs(arguments);
             }
             
             @Override
@@ -158,12 +330,12 @@ public class SummaryHandler extends MethodInvocationHandler {
         return handler;
     }
 
-    BitGraph reduce(Context context, BitGraph bitGraph){
+    BitGraph reduce(Context context, Method method, BitGraph bitGraph){
         switch (reductionMode) {
             case BASIC:
                 return basicReduce(context, bitGraph);
             case MINCUT:
-                return minCutReduce(context, bitGraph);
+                return minCutReduce(context, method, bitGraph);
         }
         return null;
     }
@@ -180,9 +352,44 @@ public class SummaryHandler extends MethodInvocationHandler {
         return new BitGraph(context, bitGraph.parameters, ret);
     }
 
-    BitGraph minCutReduce(Context context, BitGraph bitGraph) {
+    /**
+     * Returns the min cut bits of the graph, reusing the min cut of the previous graph of the method
+     * if both graphs are structurally equal.
+     * <p/>
+     * The fingerprint might collide, the reused bits therefore have to have the size of the cached
+     * min cut and have to separate the return bits from the parameter bits.
+     */
+    Set<Bit> minCutBits(Method method, BitGraph bitGraph){
+        long fingerprint = bitGraph.fingerprint();
+        CachedMinCut cached = minCutCache.get(method);
+        if (cached != null && cached.fingerprint == fingerprint){
+            Set<Bit> minCutBits = bitGraph.bitsWithColors(cached.colors);
+            if (minCutBits.size() == cached.size && bitGraph.separatesReturnFromParameters(minCutBits)){
+                minCutCacheHits.incrementAndGet();
+                bitGraph.summaryMinCutBits(minCutBits);
+                return minCutBits;
+            }
+        }
+        Set<Bit> minCutBits = bitGraph.summaryMinCutBits();
+        Set<Long> colors = bitGraph.colorsOf(minCutBits);
+        if (colors != null){
+            minCutCache.put(method, new CachedMinCut(fingerprint, colors, minCutBits.size()));
+        } else {
+            minCutCache.remove(method);
+        }
+        return minCutBits;
+    }
+
+    /**
+     * Number of min cut computations that were skipped
+     */
+    public int minCutCacheHits(){
+        return minCutCacheHits.get();
+    }
+
+    BitGraph minCutReduce(Context context, Method method, BitGraph bitGraph) {
         Set<Bit> anchorBits = new HashSet<>(bitGraph.parameterBits);
-        Set<Bit> minCutBits = bitGraph.minCutBits(bitGraph.returnValue.bitSet(), bitGraph.parameterBits, INFTY);
+        Set<Bit> minCutBits = minCutBits(method, bitGraph);
         anchorBits.addAll(minCutBits);
         Map<Bit, Bit> newBits = new HashMap<>();
         // create the new bits
@@ -209,7 +416,7 @@ public class SummaryHandler extends MethodInvocationHandler {
 
     @Override
     public Value analyze(Context c, CallSite callSite, List<Value> arguments) { 
-    	return methodGraphs.get(callSite.method).applyToArgs(c, arguments);
+    	return methodGraphs.get(callSite.method).applyToArgs(arguments);
     }
     
     @Override
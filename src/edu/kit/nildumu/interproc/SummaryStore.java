@@ -0,0 +1,188 @@
+package edu.kit.nildumu.interproc;
+
+import static edu.kit.nildumu.BasicLogger.log;
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.ibm.wala.ssa.SymbolTable;
+
+import edu.kit.nildumu.BitArena;
+import edu.kit.nildumu.Context;
+import edu.kit.nildumu.Dominators;
+import edu.kit.nildumu.Dominators.Node;
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.Method;
+import edu.kit.nildumu.util.NildumuException;
+import edu.kit.nildumu.util.Pair;
+
+/**
+ * Stores the reduced bit graphs of methods on disk, so that later runs only summarize
+ * methods that changed.
+ * <p/>
+ * The key of a method is a Merkle hash: it combines the hash of the SSA instructions of the method
+ * (and of all methods of its strongly connected component in the call graph) with the keys of the
+ * called methods and the analysis configuration (int width, reduction mode and call string
+ * recursion depth). A summary file contains the bits of the reduced graph: the parameter bits,
+ * the min cut bits and the return bits with their dependencies.
+ */
+class SummaryStore {
+
+    private final Path folder;
+
+    private final String configuration;
+
+    SummaryStore(Path folder, int intWidth, SummaryHandler.Reduction reduction, int callStringMaxRec) {
+        this.folder = folder;
+        this.configuration = String.format("%d %s %d", intWidth, reduction, callStringMaxRec);
+    }
+
+    /**
+     * Computes the keys of all methods of the call graph, bottom-up over its strongly connected components
+     */
+    Map<Method, String> keys(Dominators<Method> callGraph){
+        Map<Node<Method>, String> componentHashes = new HashMap<>();
+        Map<Method, String> keys = new HashMap<>();
+        for (Set<Node<Method>> component : callGraph.stronglyConnectedComponents()) {
+            List<String> parts = new ArrayList<>();
+            parts.add(configuration);
+            component.stream().filter(n -> !n.isEntryNode())
+                    .map(n -> n.getElem().toBCString() + "\n" + instructions(n.getElem()))
+                    .sorted().forEach(parts::add);
+            component.stream().flatMap(n -> n.getOuts().stream())
+                    .filter(n -> !component.contains(n)).map(componentHashes::get)
+                    .collect(Collectors.toCollection(TreeSet::new)).forEach(parts::add);
+            String hash = hash(String.join("\n", parts));
+            component.forEach(n -> componentHashes.put(n, hash));
+            component.stream().filter(n -> !n.isEntryNode())
+                    .forEach(n -> keys.put(n.getElem(), hash(hash + n.getElem().toBCString())));
+        }
+        return keys;
+    }
+
+    /**
+     * The instructions of the method with the constants of its symbol table, the instructions
+     * only contain the value numbers of the constants
+     */
+    static String instructions(Method method){
+        if (method.ir == null){
+            return "";
+        }
+        SymbolTable symbolTable = method.ir.getSymbolTable();
+        String instructions = Arrays.stream(method.ir.getInstructions())
+                .map(i -> i == null ? "" : i.toString(symbolTable))
+                .collect(Collectors.joining("\n"));
+        String constants = IntStream.rangeClosed(1, symbolTable.getMaxValueNumber())
+                .filter(symbolTable::isConstant)
+                .mapToObj(v -> v + "=" + symbolTable.getConstantValue(v))
+                .collect(Collectors.joining(" "));
+        return instructions + "\nconstants " + constants;
+    }
+
+    private static String hash(String str){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new NildumuException(e.getMessage());
+        }
+    }
+
+    private Path path(String key){
+        return folder.resolve(key + ".summary");
+    }
+
+    boolean contains(String key){
+        return Files.exists(path(key));
+    }
+
+    /**
+     * Stores the reduced graph, errors are only logged as the store is just a cache
+     */
+    void store(String key, BitGraph graph){
+        BitArena arena = graph.arena();
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("bits %d", arena.size()));
+        int[] deps = arena.deps();
+        for (int i = 0; i < arena.size(); i++) {
+            Pair<Integer, Integer> loc = graph.parameterLocation(arena.bit(i));
+            if (loc != null){
+                lines.add(String.format("p %d %d", loc.first, loc.second));
+            } else {
+                lines.add("b " + arena.val(i).name() + IntStream.range(arena.depStart(i), arena.depEnd(i))
+                        .mapToObj(j -> " " + deps[j]).collect(Collectors.joining()));
+            }
+        }
+        lines.add("return" + graph.returnValue.stream().map(b -> " " + arena.indexOf(b)).collect(Collectors.joining()));
+        try {
+            Files.createDirectories(folder);
+            Path tmp = Files.createTempFile(folder, key, ".tmp");
+            Files.write(tmp, lines);
+            Files.move(tmp, path(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log(() -> String.format("Could not store the summary %s: %s", key, e));
+        }
+    }
+
+    /**
+     * Loads the graph stored for the key, using the passed parameters
+     *
+     * @return null if there is no such graph or it could not be read
+     */
+    BitGraph load(Context context, String key, List<Value> parameters){
+        if (!contains(key)){
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(path(key));
+            int size = Integer.parseInt(lines.get(0).split(" ")[1]);
+            Bit[] bits = new Bit[size];
+            List<int[]> deps = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String[] parts = lines.get(i + 1).split(" ");
+                if (parts[0].equals("p")){
+                    bits[i] = parameters.get(Integer.parseInt(parts[1])).get(Integer.parseInt(parts[2]));
+                    deps.add(new int[0]);
+                } else {
+                    B val = B.valueOf(parts[1]);
+                    bits[i] = val == B.U ? bl.create(B.U, ds.empty()) : bl.create(val);
+                    deps.add(Arrays.stream(parts, 2, parts.length).mapToInt(Integer::parseInt).toArray());
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (deps.get(i).length > 0){
+                    bits[i].addDependencies(Arrays.stream(deps.get(i)).mapToObj(j -> bits[j]).collect(Collectors.toList()));
+                }
+            }
+            String[] returnParts = lines.get(size + 1).split(" ");
+            Value ret = Arrays.stream(returnParts, 1, returnParts.length)
+                    .map(i -> bits[Integer.parseInt(i)]).collect(Value.collector());
+            return new BitGraph(context, parameters, ret);
+        } catch (IOException | RuntimeException e) {
+            log(() -> String.format("Could not load the summary %s: %s", key, e));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package edu.kit.nildumu.interproc;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.kit.nildumu.BitArena;
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.util.Pair;
+
+/**
+ * Immutable, compiled form of a bit graph that is instantiated for each call site.
+ * <p/>
+ * The internal (non parameter) bits are stored in topological order, dependencies first.
+ * A reference to a bit is either the index of an internal bit or, if negative, {@code -(k + 1)}
+ * for the k-th parameter bit. Dependencies on internal bits that come later in the order (cycles)
+ * are added after all bits are created.
+ * <p/>
+ * Internal bits that don't (transitively) depend on return bits are never modified by the analysis
+ * of the caller, they are shared between instantiations with the same argument bits.
+ */
+class SummaryTemplate {
+
+    /**
+     * Bits of an instantiation that can be shared
+     */
+    private static class Instantiation {
+        final Bit[] arguments;
+        final Bit[] bits;
+        final BitIdAllocator allocator;
+
+        Instantiation(Bit[] arguments, Bit[] bits, BitIdAllocator allocator) {
+            this.arguments = arguments;
+            this.bits = bits;
+            this.allocator = allocator;
+        }
+
+        boolean matches(Bit[] arguments, BitIdAllocator allocator){
+            if (this.allocator != allocator || this.arguments.length != arguments.length){
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if (this.arguments[i] != arguments[i]){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final int[] paramNumbers;
+    private final int[] paramIndexes;
+
+    private final B[] vals;
+    private final boolean[] shareable;
+
+    /**
+     * Dependencies on parameter bits and prior internal bits
+     */
+    private final int[] depStart;
+    private final int[] deps;
+
+    private final int[] backEdgeSources;
+    private final int[] backEdgeTargets;
+
+    private final int[] returnRefs;
+
+    private volatile Instantiation shared;
+
+    private SummaryTemplate(int[] paramNumbers, int[] paramIndexes, B[] vals, boolean[] shareable,
+                            int[] depStart, int[] deps, int[] backEdgeSources, int[] backEdgeTargets, int[] returnRefs) {
+        this.paramNumbers = paramNumbers;
+        this.paramIndexes = paramIndexes;
+        this.vals = vals;
+        this.shareable = shareable;
+        this.depStart = depStart;
+        this.deps = deps;
+        this.backEdgeSources = backEdgeSources;
+        this.backEdgeTargets = backEdgeTargets;
+        this.returnRefs = returnRefs;
+    }
+
+    static SummaryTemplate compile(BitGraph graph){
+        BitArena arena = graph.arena();
+        int[] arenaDeps = arena.deps();
+        // reference of each arena bit
+        int[] refs = new int[arena.size()];
+        List<Pair<Integer, Integer>> params = new ArrayList<>();
+        int[] order = new int[arena.size()];
+        int size = 0;
+        // iterative post order traversal, the parameter bits are not expanded in the arena
+        int[] state = new int[arena.size()]; // 0: unvisited, 1: on stack, 2: done
+        int[] stack = new int[arena.size()];
+        int[] next = new int[arena.size()];
+        for (int root = 0; root < arena.size(); root++) {
+            if (state[root] != 0){
+                continue;
+            }
+            int top = 0;
+            stack[0] = root;
+            next[root] = arena.depStart(root);
+            state[root] = 1;
+            while (top >= 0){
+                int cur = stack[top];
+                if (next[cur] < arena.depEnd(cur)){
+                    int dep = arenaDeps[next[cur]++];
+                    if (state[dep] == 0){
+                        state[dep] = 1;
+                        next[dep] = arena.depStart(dep);
+                        stack[++top] = dep;
+                    }
+                    continue;
+                }
+                state[cur] = 2;
+                top--;
+                Pair<Integer, Integer> loc = graph.parameterLocation(arena.bit(cur));
+                if (loc != null){
+                    params.add(loc);
+                    refs[cur] = -params.size();
+                } else {
+                    order[size] = cur;
+                    refs[cur] = size++;
+                }
+            }
+        }
+        B[] vals = new B[size];
+        int[] depStart = new int[size + 1];
+        int[] deps = new int[arena.numberOfDependencies()];
+        int depCount = 0;
+        List<Integer> backEdgeSources = new ArrayList<>();
+        List<Integer> backEdgeTargets = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int bit = order[i];
+            vals[i] = arena.val(bit);
+            depStart[i] = depCount;
+            for (int j = arena.depStart(bit); j < arena.depEnd(bit); j++) {
+                int ref = refs[arenaDeps[j]];
+                if (ref >= i){
+                    backEdgeSources.add(i);
+                    backEdgeTargets.add(ref);
+                } else {
+                    deps[depCount++] = ref;
+                }
+            }
+        }
+        depStart[size] = depCount;
+        int[] returnRefs = graph.returnValue.stream().mapToInt(b -> refs[arena.indexOf(b)]).toArray();
+        int[] sources = backEdgeSources.stream().mapToInt(Integer::intValue).toArray();
+        int[] targets = backEdgeTargets.stream().mapToInt(Integer::intValue).toArray();
+        return new SummaryTemplate(params.stream().mapToInt(p -> p.first).toArray(),
+                params.stream().mapToInt(p -> p.second).toArray(),
+                vals, shareable(size, depStart, deps, sources, targets, returnRefs),
+                Arrays.copyOf(depStart, size + 1), Arrays.copyOf(deps, depCount), sources, targets, returnRefs);
+    }
+
+    /**
+     * Marks the internal bits that (transitively) depend on return bits as not shareable,
+     * with a single worklist over the reversed dependencies
+     */
+    private static boolean[] shareable(int size, int[] depStart, int[] deps, int[] backEdgeSources,
+                                       int[] backEdgeTargets, int[] returnRefs){
+        // reversed dependencies between internal bits, in compressed form
+        int[] dependentStart = new int[size + 1];
+        for (int j = 0; j < depStart[size]; j++) {
+            if (deps[j] >= 0){
+                dependentStart[deps[j] + 1]++;
+            }
+        }
+        for (int target : backEdgeTargets) {
+            dependentStart[target + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            dependentStart[i + 1] += dependentStart[i];
+        }
+        int[] dependents = new int[dependentStart[size]];
+        int[] next = Arrays.copyOf(dependentStart, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = depStart[i]; j < depStart[i + 1]; j++) {
+                if (deps[j] >= 0){
+                    dependents[next[deps[j]]++] = i;
+                }
+            }
+        }
+        for (int j = 0; j < backEdgeSources.length; j++) {
+            dependents[next[backEdgeTargets[j]]++] = backEdgeSources[j];
+        }
+        boolean[] shareable = new boolean[size];
+        Arrays.fill(shareable, true);
+        int[] worklist = new int[size];
+        int top = 0;
+        for (int ref : returnRefs) {
+            if (ref >= 0 && shareable[ref]){
+                shareable[ref] = false;
+                worklist[top++] = ref;
+            }
+        }
+        while (top > 0){
+            int bit = worklist[--top];
+            for (int j = dependentStart[bit]; j < dependentStart[bit + 1]; j++) {
+                if (shareable[dependents[j]]){
+                    shareable[dependents[j]] = false;
+                    worklist[top++] = dependents[j];
+                }
+            }
+        }
+        return shareable;
+    }
+
+    /**
+     * Instantiates the template for the passed arguments in a single pass
+     */
+    Value instantiate(List<Value> arguments){
+        Bit[] args = new Bit[paramNumbers.length];
+        for (int k = 0; k < args.length; k++) {
+            args[k] = arguments.get(paramNumbers[k]).get(paramIndexes[k]);
+        }
+        BitIdAllocator allocator = BitIdAllocator.current();
+        Instantiation prev = shared;
+        boolean reuse = prev != null && prev.matches(args, allocator);
+        Bit[] bits = new Bit[vals.length];
+        List<Bit> bitDeps = new ArrayList<>();
+        for (int i = 0; i < bits.length; i++) {
+            if (reuse && shareable[i]){
+                bits[i] = prev.bits[i];
+                continue;
+            }
+            if (vals[i] == B.U){
+                bitDeps.clear();
+                for (int j = depStart[i]; j < depStart[i + 1]; j++) {
+                    bitDeps.add(resolve(deps[j], bits, args));
+                }
+                bits[i] = bl.create(B.U, ds.create(bitDeps));
+            } else {
+                bits[i] = bl.create(vals[i]);
+            }
+        }
+        for (int j = 0; j < backEdgeSources.length; j++) {
+            if (!(reuse && shareable[backEdgeSources[j]])){
+                bits[backEdgeSources[j]].addDependency(bits[backEdgeTargets[j]]);
+            }
+        }
+        if (!reuse){
+            shared = new Instantiation(args, bits, allocator);
+        }
+        List<Bit> ret = new ArrayList<>(returnRefs.length);
+        for (int ref : returnRefs) {
+            ret.add(resolve(ref, bits, args));
+        }
+        return new Value(ret);
+    }
+
+    private static Bit resolve(int ref, Bit[] bits, Bit[] args){
+        return ref >= 0 ? bits[ref] : args[-ref - 1];
+    }
+
+    /**
+     * Number of internal bits
+     */
+    int size(){
+        return vals.length;
+    }
+}
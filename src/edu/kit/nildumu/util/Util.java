@@ -7,7 +7,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -96,4 +99,14 @@ public class Util {
     	iterator.forEachRemaining(res::add);
     	return res;
     }
+
+    private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a pool with the passed parallelism that is shared by all callers, the pools
+     * are never shut down (their worker threads are daemon threads)
+     */
+    public static ForkJoinPool pool(int parallelism){
+        return pools.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
 }
@@ -0,0 +1,82 @@
+package edu.kit.nildumu;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Sec;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.prog.Loop;
+import edu.kit.nildumu.prog.Simple;
+
+public class ContextForkTest {
+
+	private static Map<Sec<?>, Integer> leakages(Context context) {
+		return context.computeLeakage().entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().maxFlow));
+	}
+
+	private static Set<Bit> outputBits(Context context) {
+		Set<Bit> bits = Collections.newSetFromMap(new IdentityHashMap<>());
+		context.output.getBits().forEach(p -> bits.add(p.second));
+		return bits;
+	}
+
+	@Test
+	public void testAnalyzingTheForkDoesNotChangeTheParent() {
+		Program program = TestUtil.load(Simple.class);
+		Context fork = program.context.fork();
+		fork.fixPointIteration(program.main.entry);
+		Program unanalyzed = TestUtil.load(Simple.class);
+		Program fresh = TestUtil.load(Simple.class);
+		fresh.analyze();
+		assertAll(() -> assertEquals(leakages(unanalyzed.context), leakages(program.context), "Parent leakage changed"),
+				() -> assertEquals(leakages(fresh.context), leakages(fork), "Fork leaks like a fresh analysis"));
+	}
+
+	@Test
+	public void testContinuingTheForkWithAnExtraOutput() {
+		Program program = TestUtil.load(Simple.class);
+		program.analyze();
+		Set<Bit> parentOutputBits = outputBits(program.context);
+		Context fork = program.context.fork();
+		Value input = fork.input.getValues().get(0).second;
+		fork.addOutputValue(fork.sl.bot(), input);
+		fork.fixPointIteration(program.main.entry);
+		Program analyzed = TestUtil.load(Simple.class);
+		analyzed.analyze();
+		Program fresh = TestUtil.load(Simple.class);
+		fresh.analyze();
+		fresh.context.addOutputValue(fresh.context.sl.bot(), fresh.context.input.getValues().get(0).second);
+		assertAll(() -> assertEquals(leakages(analyzed.context), leakages(program.context), "Parent leakage changed"),
+				() -> assertEquals(parentOutputBits, outputBits(program.context), "Parent outputs changed"),
+				() -> assertTrue(Collections.disjoint(parentOutputBits, outputBits(fork)),
+						"The fork merges into its own copies of the bits"),
+				() -> assertEquals(leakages(fresh.context), leakages(fork), "Fork leaks like a fresh analysis"));
+	}
+
+	@Test
+	public void testForkWithAnotherUnrollCount() {
+		Program program = TestUtil.load(Loop.class);
+		Context fork = program.context.fork().unrollCount(2);
+		fork.fixPointIteration(program.main.entry);
+		program.analyze();
+		Program analyzed = TestUtil.load(Loop.class);
+		analyzed.analyze();
+		Program fresh = TestUtil.load(Loop.class);
+		fresh.context.unrollCount(2);
+		fresh.analyze();
+		assertAll(() -> assertEquals(1, program.context.unrollCount()),
+				() -> assertEquals(leakages(analyzed.context), leakages(program.context), "Parent leaks like an analysis with the default unroll count"),
+				() -> assertEquals(leakages(fresh.context), leakages(fork), "Fork leaks like a fresh analysis with the unroll count"));
+	}
+}
@@ -111,16 +111,14 @@ public class ContextMatcher {
 
         public LeakageMatcher leaksAtLeast(Sec sec, int leakage) {
             builder.add(() -> {
-                MinCut.ComputationResult comp = MinCut.compute(context, sec);
-                assertTrue(comp.maxFlow >= leakage, String.format("The calculated leakage for an attacker of level %s should be at least %d, leaking %d", sec, leakage, comp.maxFlow));
+                assertTrue(context.leaksAtLeast(sec, leakage), () -> String.format("The calculated leakage for an attacker of level %s should be at least %d, leaking %d", sec, leakage, MinCut.compute(context, sec).maxFlow));
             });
             return this;
         }
         
         public LeakageMatcher leaksAtMost(Sec sec, int leakage) {
             builder.add(() -> {
-                MinCut.ComputationResult comp = MinCut.compute(context, sec);
-                assertTrue(comp.maxFlow <= leakage, String.format("The calculated leakage for an attacker of level %s should be at most %d, leaking %d", sec, leakage, comp.maxFlow));
+                assertTrue(context.leaksAtMost(sec, leakage), () -> String.format("The calculated leakage for an attacker of level %s should be at most %d, leaking %d", sec, leakage, MinCut.compute(context, sec).maxFlow));
             });
             return this;
         }
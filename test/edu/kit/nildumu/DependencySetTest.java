@@ -0,0 +1,135 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+import edu.kit.nildumu.Lattices.DependencySet;
+import edu.kit.nildumu.Lattices.DependencySetImpl;
+
+public class DependencySetTest {
+
+	private static List<Bit> bits(BitIdAllocator allocator, int number) {
+		return allocator.callBound(() -> {
+			List<Bit> bits = new ArrayList<>();
+			for (int i = 0; i < number; i++) {
+				bits.add(bl.create(B.U, ds.empty()));
+			}
+			return bits;
+		});
+	}
+
+	private static void assertContainsExactly(Set<Bit> expected, List<Bit> all, DependencySet set) {
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, new HashSet<>(set));
+		for (Bit bit : all) {
+			assertEquals(expected.contains(bit), set.contains(bit), "contains " + bit);
+		}
+	}
+
+	/**
+	 * Adds the bits one by one, the set is stored inline up to four bits, in an array up to
+	 * 32 bits and in a hash set afterwards
+	 */
+	@Test
+	public void testUpgrades() {
+		List<Bit> all = bits(new BitIdAllocator(), 40);
+		DependencySet set = new DependencySetImpl(Collections.emptySet());
+		Set<Bit> expected = new HashSet<>();
+		for (Bit bit : all) {
+			assertTrue(set.add(bit));
+			assertFalse(set.add(bit), "Already contained");
+			expected.add(bit);
+			assertContainsExactly(expected, all, set);
+		}
+	}
+
+	@Test
+	public void testRemoveAfterEachUpgrade() {
+		for (int size : new int[]{3, 4, 5, 31, 32, 33, 40}) {
+			List<Bit> all = bits(new BitIdAllocator(), size);
+			DependencySet set = new DependencySetImpl(all);
+			Set<Bit> expected = new HashSet<>(all);
+			for (int i = size - 1; i >= 0; i -= 2) {
+				assertTrue(set.remove(all.get(i)), "Size " + size);
+				assertFalse(set.remove(all.get(i)), "Size " + size);
+				expected.remove(all.get(i));
+				assertContainsExactly(expected, all, set);
+			}
+			assertTrue(set.add(all.get(size - 1)));
+			expected.add(all.get(size - 1));
+			assertContainsExactly(expected, all, set);
+		}
+	}
+
+	@Test
+	public void testBulkRemovals() {
+		for (int size : new int[]{4, 20, 40}) {
+			List<Bit> all = bits(new BitIdAllocator(), size);
+			List<Bit> even = new ArrayList<>();
+			for (int i = 0; i < size; i += 2) {
+				even.add(all.get(i));
+			}
+			DependencySet retained = new DependencySetImpl(all);
+			retained.retainAll(even);
+			DependencySet removed = new DependencySetImpl(all);
+			removed.removeAll(even);
+			DependencySet filtered = new DependencySetImpl(all);
+			filtered.removeIf(even::contains);
+			Set<Bit> odd = new HashSet<>(all);
+			odd.removeAll(even);
+			assertAll(() -> assertContainsExactly(new HashSet<>(even), all, retained),
+					() -> assertContainsExactly(odd, all, removed),
+					() -> assertContainsExactly(odd, all, filtered));
+		}
+	}
+
+	@Test
+	public void testInfimum() {
+		List<Bit> all = bits(new BitIdAllocator(), 10);
+		DependencySet a = new DependencySetImpl(all.subList(0, 7));
+		DependencySet b = new DependencySetImpl(all.subList(3, 10));
+		assertContainsExactly(new HashSet<>(all.subList(3, 7)), all, ds.inf(a, b));
+	}
+
+	/**
+	 * Bits of different allocators can have the same bit number, the array is sorted by the bit number
+	 * and has to distinguish them
+	 */
+	@Test
+	public void testBitsOfDifferentAllocatorsWithTheSameNumber() {
+		List<Bit> first = bits(new BitIdAllocator(), 10);
+		List<Bit> second = bits(new BitIdAllocator(), 10);
+		List<Bit> all = new ArrayList<>(first);
+		all.addAll(second);
+		assertEquals(first.get(3).bitNo, second.get(3).bitNo);
+		DependencySet set = new DependencySetImpl(first);
+		Set<Bit> expected = new HashSet<>(first);
+		assertFalse(set.contains(second.get(3)));
+		for (Bit bit : second) {
+			assertTrue(set.add(bit));
+			expected.add(bit);
+		}
+		assertContainsExactly(expected, all, set);
+		assertTrue(set.remove(second.get(3)));
+		expected.remove(second.get(3));
+		assertContainsExactly(expected, all, set);
+		assertTrue(set.remove(first.get(5)));
+		expected.remove(first.get(5));
+		assertContainsExactly(expected, all, set);
+	}
+}
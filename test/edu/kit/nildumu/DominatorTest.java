@@ -3,9 +3,16 @@ package edu.kit.nildumu;
 import static edu.kit.nildumu.util.Util.set;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -39,4 +46,47 @@ public class DominatorTest {
 				() -> assertTrue(doms.dominators("h").contains("f"),
 						"f dominates h"));
 	}
+
+	private static <T> List<Set<T>> componentElements(Dominators<T> doms) {
+		return doms.stronglyConnectedComponents().stream()
+				.map(c -> c.stream().map(Dominators.Node::getElem).collect(Collectors.toSet()))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testStronglyConnectedComponents() {
+		Dominators<String> doms = new Dominators<>("a", s -> {
+			switch (s){
+			case "a":
+				return set("b", "e");
+			case "b":
+				return set("c");
+			case "c":
+				return set("b", "d");
+			}
+			return set();
+		});
+		List<Set<String>> components = componentElements(doms);
+		assertAll(() -> assertEquals(4, components.size()),
+				() -> assertEquals(new HashSet<>(Arrays.asList(set("a"), set("b", "c"), set("d"), set("e"))),
+						new HashSet<>(components)),
+				() -> assertTrue(components.indexOf(set("d")) < components.indexOf(set("b", "c")),
+						"Callees come first"),
+				() -> assertEquals(set("a"), components.get(components.size() - 1), "Root comes last"));
+	}
+
+	/**
+	 * The components of long call chains are computed without recursion, even with a small stack
+	 */
+	@Test
+	public void testStronglyConnectedComponentsOfALongChain() throws InterruptedException {
+		int length = 300;
+		Dominators<Integer> doms = new Dominators<>(0, i -> i < length ? set(i + 1) : set(0));
+		AtomicReference<List<Set<Integer>>> components = new AtomicReference<>();
+		Thread thread = new Thread(null, () -> components.set(componentElements(doms)), "scc", 1 << 16);
+		thread.start();
+		thread.join();
+		assertNotNull(components.get(), "Stack overflow");
+		assertEquals(length + 1, components.get().get(0).size(), "A single component");
+	}
 }
@@ -0,0 +1,182 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.BitIdAllocator;
+
+public class FlowNetworkTest {
+
+	/**
+	 * Two disjoint paths from 0 to 3 and a cross edge
+	 */
+	private FlowNetwork diamond() {
+		return new FlowNetwork.Builder(4)
+				.addEdge(0, 1, 3).addEdge(0, 2, 2)
+				.addEdge(1, 2, 5)
+				.addEdge(1, 3, 2).addEdge(2, 3, 3)
+				.build(0, 3);
+	}
+
+	@Test
+	public void testDinicMaxFlow() {
+		FlowNetwork network = diamond();
+		assertEquals(5, network.maxFlow());
+		boolean[] reachable = network.residualReachable();
+		assertAll(() -> assertTrue(reachable[0], "source is on the source side"),
+				() -> assertFalse(reachable[3], "sink is on the sink side"));
+	}
+
+	@Test
+	public void testBoundedAugmentingPaths() {
+		FlowNetwork network = diamond();
+		// both shortest paths have a bottleneck of 2, the search stops after the first augmentation
+		assertEquals(2, network.augmentingPaths(1), "stops at the limit");
+		assertEquals(2, network.flow());
+		assertEquals(4, network.augmentingPaths(3), "stops after the second augmentation");
+		assertEquals(5, network.augmentingPaths(Long.MAX_VALUE));
+		assertFalse(network.residualReachable()[3]);
+	}
+
+	@Test
+	public void testReset() {
+		FlowNetwork network = diamond();
+		network.maxFlow();
+		network.reset();
+		assertEquals(0, network.flow());
+		assertEquals(5, network.maxFlow());
+	}
+
+	@Test
+	public void testInfiniteFlow() {
+		FlowNetwork network = new FlowNetwork.Builder(3)
+				.addEdge(0, 1, FlowNetwork.INFINITE_CAPACITY)
+				.addEdge(1, 2, Long.MAX_VALUE)
+				.build(0, 2);
+		network.maxFlow();
+		assertTrue(network.hasInfiniteFlow());
+	}
+
+	/**
+	 * Lowering the capacity of an edge that carries flow repairs the flow, the next computation
+	 * continues with it
+	 */
+	@Test
+	public void testSetCapacityRepairsTheFlow() {
+		FlowNetwork network = diamond();
+		assertEquals(5, network.maxFlow());
+		// edge 3 is 1 -> 3 and saturated
+		network.setCapacity(3, 0);
+		assertAll(() -> assertEquals(0, network.flow(3), "no flow on the removed edge"),
+				() -> assertTrue(network.flow() <= 3, "flow is still valid"));
+		assertEquals(3, network.maxFlow());
+		network.setCapacity(3, 2);
+		assertEquals(5, network.maxFlow(), "raising the capacity again restores the flow");
+		network.setCapacity(4, 10);
+		network.setCapacity(1, 0);
+		assertEquals(3, network.maxFlow());
+	}
+
+	@Test
+	public void testSetCapacityEqualsFreshNetwork() {
+		Random random = new Random(13);
+		for (int round = 0; round < 200; round++) {
+			int vertices = 3 + random.nextInt(8);
+			int edges = random.nextInt(25);
+			int[] from = new int[edges];
+			int[] to = new int[edges];
+			long[] capacities = new long[edges];
+			FlowNetwork.Builder builder = new FlowNetwork.Builder(vertices);
+			for (int e = 0; e < edges; e++) {
+				from[e] = random.nextInt(vertices);
+				to[e] = random.nextInt(vertices);
+				capacities[e] = random.nextInt(4);
+				builder.addEdge(from[e], to[e], capacities[e]);
+			}
+			FlowNetwork network = builder.build(0, vertices - 1);
+			network.maxFlow();
+			for (int step = 0; step < 5 && edges > 0; step++) {
+				int edge = random.nextInt(edges);
+				capacities[edge] = random.nextInt(4);
+				network.setCapacity(edge, capacities[edge]);
+				FlowNetwork.Builder fresh = new FlowNetwork.Builder(vertices);
+				for (int e = 0; e < edges; e++) {
+					fresh.addEdge(from[e], to[e], capacities[e]);
+				}
+				assertEquals(fresh.build(0, vertices - 1).maxFlow(), network.maxFlow(),
+						String.format("Round %d, step %d", round, step));
+			}
+		}
+	}
+
+	/**
+	 * The reduced network has the same max flow and its cut has the same size as the cut of the
+	 * unreduced network, on random bit graphs with cycles and bits with infinite weight
+	 */
+	@Test
+	public void testArenaReductionKeepsTheMaxFlow() {
+		BitIdAllocator allocator = new BitIdAllocator();
+		Random random = new Random(17);
+		int reducedRounds = 0;
+		for (int round = 0; round < 500; round++) {
+			int n = 3 + random.nextInt(25);
+			List<Bit> bits = new ArrayList<>();
+			Set<Bit> infinite = new HashSet<>();
+			for (int i = 0; i < n; i++) {
+				bits.add(allocator.callBound(() -> bl.create(B.U, ds.empty())));
+			}
+			for (int i = 0; i < n; i++) {
+				for (int d = random.nextInt(4); d > 0; d--) {
+					// mostly dependencies on later bits, the others create cycles
+					int j = random.nextInt(5) > 0 ? i + 1 + random.nextInt(n) : random.nextInt(n);
+					if (j < n && j != i) {
+						bits.get(i).addDependency(bits.get(j));
+					}
+				}
+				if (random.nextInt(4) == 0) {
+					infinite.add(bits.get(i));
+				}
+			}
+			Set<Bit> sources = new HashSet<>();
+			Set<Bit> sinks = new HashSet<>();
+			for (int i = random.nextInt(3); i >= 0; i--) {
+				sources.add(bits.get(random.nextInt(3)));
+			}
+			for (int i = random.nextInt(4); i >= 0; i--) {
+				Bit bit = bits.get(n - 1 - random.nextInt(Math.min(n, 5)));
+				if (!sources.contains(bit)) {
+					sinks.add(bit);
+				}
+			}
+			BitArena arena = BitArena.create(sources, b -> !sinks.contains(b), b -> infinite.contains(b) ? Context.INFTY : 1);
+			ArenaReduction plain = new ArenaReduction(arena, arena.indexesOf(sources), arena.indexesOf(sinks), false);
+			ArenaReduction reduced = new ArenaReduction(arena, arena.indexesOf(sources), arena.indexesOf(sinks), true);
+			FlowNetwork plainNetwork = plain.network();
+			FlowNetwork reducedNetwork = reduced.network();
+			long plainFlow = plainNetwork.maxFlow();
+			String message = String.format("Round %d", round);
+			assertEquals(plainFlow, reducedNetwork.maxFlow(), message);
+			if (plainFlow < FlowNetwork.INFINITE_CAPACITY) {
+				assertEquals(plain.cut(plainNetwork).size(), reduced.cut(reducedNetwork).size(), message);
+			}
+			if (reduced.size() < plain.size()) {
+				reducedRounds++;
+			}
+		}
+		assertTrue(reducedRounds > 0, "Some graphs are reduced");
+	}
+}
@@ -0,0 +1,57 @@
+package edu.kit.nildumu;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Sec;
+import edu.kit.nildumu.prog.Loop;
+
+public class MemoizationTest {
+
+	private static Program analyze(boolean memoize) {
+		Program program = TestUtil.load(Loop.class);
+		program.context.memoizeEvaluations(memoize);
+		program.analyze();
+		return program;
+	}
+
+	private static Map<Sec<?>, Integer> leakages(Context context) {
+		return context.computeLeakage().entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().maxFlow));
+	}
+
+	private static List<List<B>> outputs(Context context) {
+		return context.output.getValues().stream()
+				.map(p -> p.second.stream().map(Bit::val).collect(Collectors.toList()))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testMemoizedEvaluationsGiveTheSameResult() {
+		Program memoized = analyze(true);
+		Program evaluated = analyze(false);
+		assertAll(() -> assertTrue(memoized.context.numberOfSavedEvaluations() > 0, "Evaluations are skipped"),
+				() -> assertEquals(0, evaluated.context.numberOfSavedEvaluations()),
+				() -> assertEquals(leakages(evaluated.context), leakages(memoized.context)),
+				() -> assertEquals(outputs(evaluated.context), outputs(memoized.context)));
+	}
+
+	@Test
+	public void testSavedEvaluationsIncrease() {
+		Program program = TestUtil.load(Loop.class);
+		program.analyze();
+		int saved = program.context.numberOfSavedEvaluations();
+		program.context.fixPointIteration(program.main.entry);
+		assertTrue(program.context.numberOfSavedEvaluations() > saved,
+				"Reanalyzing with unchanged arguments skips evaluations");
+	}
+}
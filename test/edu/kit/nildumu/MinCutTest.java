@@ -0,0 +1,170 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.DependencySet;
+import edu.kit.nildumu.Lattices.DiamondSecLattice;
+import edu.kit.nildumu.Lattices.Sec;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.prog.Simple;
+
+public class MinCutTest {
+
+	/**
+	 * Creates a context with the four level diamond lattice and a random bit graph
+	 * between secret inputs of all levels and outputs of the lower levels, that contains
+	 * cycles and bits with infinite weight
+	 */
+	private static Context diamondContext(Random random) {
+		Context context = new Context(TestUtil.load(Simple.class), DiamondSecLattice.get());
+		context.bitIdAllocator().runBound(() -> {
+			List<Bit> bits = new ArrayList<>();
+			for (DiamondSecLattice sec : new DiamondSecLattice[]{DiamondSecLattice.HIGH, DiamondSecLattice.MID1, DiamondSecLattice.MID2}) {
+				Value input = new Value(bl.create(B.U, ds.empty()), bl.create(B.U, ds.empty()), bl.create(B.U, ds.empty()));
+				context.addInputValue(sec, input);
+				input.forEach(bits::add);
+			}
+			int inputBits = bits.size();
+			for (int i = 0; i < 30; i++) {
+				List<Bit> deps = new ArrayList<>();
+				for (int j = random.nextInt(3) + 1; j > 0; j--) {
+					deps.add(bits.get(random.nextInt(bits.size())));
+				}
+				Bit bit = bl.create(B.U, ds.create(deps));
+				if (random.nextInt(5) == 0) {
+					context.weight(bit, Context.INFTY);
+				}
+				bits.add(bit);
+			}
+			for (int i = 0; i < 5; i++) {
+				Bit bit = bits.get(inputBits + random.nextInt(bits.size() - inputBits));
+				bit.addDependency(bits.get(inputBits + random.nextInt(bits.size() - inputBits)));
+			}
+			for (DiamondSecLattice sec : new DiamondSecLattice[]{DiamondSecLattice.LOW, DiamondSecLattice.MID1, DiamondSecLattice.MID2}) {
+				List<Bit> outputBits = new ArrayList<>();
+				for (int j = 0; j < 4; j++) {
+					outputBits.add(bl.create(B.U, ds.create(bits.get(inputBits + random.nextInt(bits.size() - inputBits)))));
+				}
+				context.addOutputValue(sec, new Value(outputBits));
+			}
+		});
+		return context;
+	}
+
+	private static Map<Sec<?>, Integer> maxFlows(Map<Sec<?>, MinCut.ComputationResult> results) {
+		return results.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().maxFlow));
+	}
+
+	private static Map<Sec<?>, Integer> perLevel(Context context) {
+		return context.sl.elements().stream().map(s -> (Sec<?>) s)
+				.collect(Collectors.toMap(s -> s, s -> MinCut.compute(context, s).maxFlow));
+	}
+
+	/**
+	 * The incremental computation visits the levels in a linear extension of the lattice order
+	 * and repairs the flow of the previous level when the source and sink capacities change
+	 */
+	@Test
+	public void testIncrementalLevelsEqualPerLevelComputation() {
+		Random random = new Random(7);
+		for (int round = 0; round < 20; round++) {
+			Context context = diamondContext(random);
+			assertEquals(perLevel(context), maxFlows(new MinCut.IncrementalLevels(context).compute()), "Round " + round);
+		}
+	}
+
+	@Test
+	public void testParallelLevelsEqualSequentialLevels() {
+		Random random = new Random(3);
+		for (int round = 0; round < 20; round++) {
+			Context context = diamondContext(random);
+			assertEquals(perLevel(context), maxFlows(MinCut.compute(context, 4)), "Round " + round);
+		}
+	}
+
+	@Test
+	public void testParallelismOfTheContext() {
+		Context context = diamondContext(new Random(5));
+		Map<Sec<?>, Integer> expected = perLevel(context);
+		context.leakageParallelism(3);
+		assertEquals(expected, maxFlows(MinCut.compute(context)));
+		assertEquals(expected, maxFlows(MinCut.compute(context)), "The pool is reused");
+	}
+
+	/**
+	 * Context with {@code inputs} secret bits and {@code outputs} public bits that each depend on all
+	 * secret bits, either via the infinite weight hub of {@link Operator#createUnknownValue(Context, int, DependencySet)}
+	 * or directly
+	 */
+	private static Context allDependOnAll(int inputs, int outputs, boolean hub) {
+		Context context = new Context(TestUtil.load(Simple.class));
+		context.bitIdAllocator().runBound(() -> {
+			List<Bit> input = new ArrayList<>();
+			for (int i = 0; i < inputs; i++) {
+				input.add(bl.create(B.U, ds.empty()));
+			}
+			context.addInputValue(context.sl.top(), new Value(input));
+			Value output;
+			if (hub) {
+				output = Operator.createUnknownValue(context, outputs, ds.create(input));
+			} else {
+				List<Bit> bits = new ArrayList<>();
+				for (int i = 0; i < outputs; i++) {
+					bits.add(bl.create(B.U, ds.create(input)));
+				}
+				output = new Value(bits);
+			}
+			context.addOutputValue(context.sl.bot(), output);
+		});
+		return context;
+	}
+
+	@Test
+	public void testHubDoesNotChangeTheLeakage() {
+		for (int inputs = 1; inputs <= 5; inputs++) {
+			for (int outputs = 1; outputs <= 5; outputs++) {
+				Context withHub = allDependOnAll(inputs, outputs, true);
+				Context withoutHub = allDependOnAll(inputs, outputs, false);
+				String message = String.format("%d inputs, %d outputs", inputs, outputs);
+				MinCut.ComputationResult result = MinCut.compute(withHub, withHub.sl.bot());
+				assertEquals(MinCut.compute(withoutHub, withoutHub.sl.bot()).maxFlow, result.maxFlow, message);
+				assertEquals(Math.min(inputs, outputs), result.maxFlow, message);
+				Set<Bit> hubs = withHub.getOutputBits(withHub.sl.bot()).stream()
+						.flatMap(b -> b.deps().stream()).filter(b -> withHub.weight(b) == Context.INFTY)
+						.collect(Collectors.toSet());
+				assertEquals(inputs > 1 && outputs > 1 && inputs * outputs > inputs + outputs, !hubs.isEmpty(), message);
+				assertTrue(Collections.disjoint(hubs, result.minCut), message);
+			}
+		}
+	}
+
+	@Test
+	public void testThresholdOfDinic() {
+		Random random = new Random(11);
+		for (int round = 0; round < 10; round++) {
+			Context context = diamondContext(random).minCutAlgorithm("dinic");
+			Map<Sec<?>, Integer> leakages = perLevel(context);
+			for (Sec<?> sec : leakages.keySet()) {
+				for (int k = 1; k <= 6; k++) {
+					assertEquals(leakages.get(sec) >= k, context.leaksAtLeast(sec, k),
+							String.format("Round %d, level %s, threshold %d", round, sec, k));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package edu.kit.nildumu;
+
+import static edu.kit.nildumu.Lattices.vl;
+import static edu.kit.nildumu.Lattices.B.ONE;
+import static edu.kit.nildumu.Lattices.B.ZERO;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.prog.Calls;
+import edu.kit.nildumu.prog.Simple;
+
+public class OperatorTest {
+
+	private static final int WIDTH = 4;
+
+	private Context context;
+
+	private int previousBitWidth;
+
+	@BeforeEach
+	public void setUp() {
+		context = new Context(TestUtil.load(Simple.class));
+		previousBitWidth = vl.bitWidth;
+		vl.bitWidth = WIDTH;
+	}
+
+	@AfterEach
+	public void tearDown() {
+		vl.bitWidth = previousBitWidth;
+	}
+
+	/**
+	 * Values of {@link #WIDTH} bits, given from the most significant bit on, e.g. {@code "0u1u"}
+	 */
+	private static Value value(String bits) {
+		return vl.parse("0b" + bits);
+	}
+
+	private static List<String> allPatterns() {
+		List<String> patterns = new ArrayList<>();
+		patterns.add("");
+		for (int i = 0; i < WIDTH; i++) {
+			List<String> longer = new ArrayList<>();
+			for (String pattern : patterns) {
+				for (char c : new char[]{'0', '1', 'u'}) {
+					longer.add(pattern + c);
+				}
+			}
+			patterns = longer;
+		}
+		return patterns;
+	}
+
+	/**
+	 * All signed integers that match the pattern
+	 */
+	private static List<Integer> concretize(String pattern) {
+		List<Integer> values = new ArrayList<>();
+		values.add(0);
+		for (char c : pattern.toCharArray()) {
+			List<Integer> next = new ArrayList<>();
+			for (int v : values) {
+				if (c != '1') {
+					next.add(v << 1);
+				}
+				if (c != '0') {
+					next.add((v << 1) | 1);
+				}
+			}
+			values = next;
+		}
+		values.replaceAll(v -> (v << (Integer.SIZE - WIDTH)) >> (Integer.SIZE - WIDTH));
+		return values;
+	}
+
+	/**
+	 * Checks that every constant result bit matches the result of all concrete arguments
+	 */
+	private void assertSound(Operator operator, IntBinaryOperator concrete) {
+		for (String x : allPatterns()) {
+			for (String y : allPatterns()) {
+				Value result = operator.compute(context, null, Arrays.asList(value(x), value(y)));
+				for (int a : concretize(x)) {
+					for (int b : concretize(y)) {
+						int expected = concrete.applyAsInt(a, b);
+						for (int i = 1; i <= WIDTH; i++) {
+							B val = result.get(i).val();
+							if (val.isConstant() && val != (((expected >> (i - 1)) & 1) == 1 ? ONE : ZERO)) {
+								fail(String.format("%s %s %s = %s, but %d %s %d = %d", x, operator, y, result, a, operator, b, expected));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testComparatorsAreSound() {
+		context.bitIdAllocator().runBound(() -> {
+			assertSound(Operator.LESS, (a, b) -> a < b ? 1 : 0);
+			assertSound(Operator.LESS_EQUALS, (a, b) -> a <= b ? 1 : 0);
+			assertSound(Operator.GREATER, (a, b) -> a > b ? 1 : 0);
+			assertSound(Operator.GREATER_EQUALS, (a, b) -> a >= b ? 1 : 0);
+		});
+	}
+
+	@Test
+	public void testSubtractIsSound() {
+		context.bitIdAllocator().runBound(() -> assertSound(Operator.SUBTRACT, (a, b) -> a - b));
+	}
+
+	@Test
+	public void testAddAndBitwiseOperatorsAreSound() {
+		context.bitIdAllocator().runBound(() -> {
+			assertSound(Operator.ADD, (a, b) -> a + b);
+			assertSound(Operator.AND, (a, b) -> a & b);
+			assertSound(Operator.OR, (a, b) -> a | b);
+			assertSound(Operator.XOR, (a, b) -> a ^ b);
+		});
+	}
+
+	@Test
+	public void testEqualityIsSound() {
+		context.bitIdAllocator().runBound(() -> {
+			assertSound(Operator.EQUALS, (a, b) -> a == b ? 1 : 0);
+			assertSound(Operator.UNEQUALS, (a, b) -> a != b ? 1 : 0);
+		});
+	}
+
+	@Test
+	public void testCarryOfTheKnownPrefix() {
+		context.bitIdAllocator().runBound(() -> {
+			Value result = Operator.ADD.compute(context, null, Arrays.asList(value("uu11"), value("0001")));
+			// 11 + 01 is computed natively, its carry goes into the adder chain of the unknown bits
+			assertAll(() -> assertEquals(ZERO, result.get(1).val()),
+					() -> assertEquals(ZERO, result.get(2).val()),
+					() -> assertTrue(result.get(3).isUnknown()),
+					() -> assertTrue(result.get(4).isUnknown()));
+		});
+	}
+
+	@Test
+	public void testRangesAreDisjoint() {
+		context.bitIdAllocator().runBound(() -> {
+			assertAll(() -> assertTrue(Operator.rangesAreDisjoint(value("1uuu"), value("0uuu"))),
+					() -> assertTrue(Operator.rangesAreDisjoint(value("011u"), value("00uu"))),
+					() -> assertFalse(Operator.rangesAreDisjoint(value("0u1u"), value("0uu1"))),
+					() -> assertFalse(Operator.rangesAreDisjoint(value("uuuu"), value("0101"))));
+		});
+	}
+
+	/**
+	 * Wraps the result of the native operation around to {@link #WIDTH} bits
+	 */
+	private static int wrap(int value) {
+		return (value << (Integer.SIZE - WIDTH)) >> (Integer.SIZE - WIDTH);
+	}
+
+	private Value fold(Operator operator, int a, int b) {
+		return operator.compute(context, null, Arrays.asList(vl.constant(a), vl.constant(b)));
+	}
+
+	private void assertFoldsLike(Operator operator, IntBinaryOperator concrete) {
+		int min = -(1 << (WIDTH - 1));
+		for (int a = min; a < -min; a++) {
+			for (int b = min; b < -min; b++) {
+				if ((operator == Operator.DIVIDE || operator == Operator.MODULO) && b == 0) {
+					continue;
+				}
+				Value result = fold(operator, a, b);
+				assertTrue(result.isConstant(), String.format("%d %s %d is folded", a, operator, b));
+				assertEquals(wrap(concrete.applyAsInt(a, b)), result.asInt(), String.format("%d %s %d", a, operator, b));
+			}
+		}
+	}
+
+	@Test
+	public void testFoldingEqualsNativeArithmetic() {
+		context.bitIdAllocator().runBound(() -> {
+			assertFoldsLike(Operator.ADD, (a, b) -> a + b);
+			assertFoldsLike(Operator.SUBTRACT, (a, b) -> a - b);
+			assertFoldsLike(Operator.MULTIPLY, (a, b) -> a * b);
+			assertFoldsLike(Operator.DIVIDE, (a, b) -> a / b);
+			assertFoldsLike(Operator.MODULO, (a, b) -> a % b);
+			assertFoldsLike(Operator.AND, (a, b) -> a & b);
+			assertFoldsLike(Operator.OR, (a, b) -> a | b);
+			assertFoldsLike(Operator.XOR, (a, b) -> a ^ b);
+			// the dividend is no longer swapped with a power of two divisor and the arguments are not multiplied
+			assertAll(() -> assertEquals(0, fold(Operator.DIVIDE, 2, 4).asInt()),
+					() -> assertEquals(2, fold(Operator.DIVIDE, 6, 3).asInt()),
+					() -> assertEquals(-8, fold(Operator.DIVIDE, -8, -1).asInt(), "Wraps around"),
+					() -> assertEquals(-2, fold(Operator.ADD, 7, 7).asInt(), "Wraps around"));
+		});
+	}
+
+	/**
+	 * The shifts of values of the bit width of the program, that are folded and that are computed bitwise
+	 */
+	@Test
+	public void testFoldedShiftsEqualBitwiseShifts() {
+		Context calls = new Context(TestUtil.load(Calls.class));
+		vl.bitWidth = WIDTH;
+		calls.bitIdAllocator().runBound(() -> {
+			for (Operator.BinaryOperator operator : Arrays.asList(Operator.RIGHT_SHIFT, Operator.LEFT_SHIFT)) {
+				for (int a = -(1 << (WIDTH - 1)); a < 1 << (WIDTH - 1); a++) {
+					for (int shift = 0; shift < WIDTH; shift++) {
+						Value folded = operator.compute(calls, null, Arrays.asList(vl.constant(a), vl.constant(shift)));
+						Value bitwise = operator.compute(calls, vl.constant(a), vl.constant(shift));
+						for (int i = 1; i <= WIDTH; i++) {
+							assertEquals(bitwise.get(i).val(), folded.get(i).val(),
+									String.format("Bit %d of %d %s %d", i, a, operator, shift));
+						}
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	public void testCanFold() {
+		assertAll(() -> assertFalse(Operator.DIVIDE.canFold(3, 0)),
+				() -> assertFalse(Operator.MODULO.canFold(3, 0)),
+				() -> assertTrue(Operator.DIVIDE.canFold(3, -1)),
+				() -> assertFalse(Operator.RIGHT_SHIFT.canFold(3, -1)),
+				() -> assertFalse(Operator.RIGHT_SHIFT.canFold(3, WIDTH)),
+				() -> assertTrue(Operator.RIGHT_SHIFT.canFold(3, WIDTH - 1)),
+				() -> assertFalse(Operator.LEFT_SHIFT.canFold(3, -1)),
+				() -> assertFalse(Operator.LEFT_SHIFT.canFold(3, WIDTH)),
+				() -> assertTrue(Operator.LEFT_SHIFT.canFold(3, WIDTH - 1)));
+		context.bitIdAllocator().runBound(() -> {
+			assertAll(() -> assertFalse(fold(Operator.DIVIDE, 3, 0).isConstant(), "Division by zero is not folded"),
+					() -> assertFalse(fold(Operator.MODULO, 3, 0).isConstant(), "Modulo by zero is not folded"));
+		});
+	}
+
+	@Test
+	public void testSignBitDecides() {
+		context.bitIdAllocator().runBound(() -> {
+			Value negative = value("1uuu");
+			Value positive = value("0uuu");
+			assertAll(() -> assertEquals(ONE, Operator.LESS.less(negative, positive).val()),
+					() -> assertEquals(ZERO, Operator.LESS.less(positive, negative).val()),
+					() -> assertEquals(ONE, Operator.GREATER.compute(context, positive, negative).get(1).val()),
+					() -> assertEquals(ZERO, Operator.GREATER_EQUALS.compute(context, negative, positive).get(1).val()));
+		});
+	}
+
+	@Test
+	public void testMixedConstantAndUnknownPrefix() {
+		context.bitIdAllocator().runBound(() -> {
+			Value x = value("0u1u");
+			Value y = value("0u0u");
+			Bit less = Operator.LESS.less(x, y);
+			// bit 2 is the first constant bit that differs, only the unknown bits above it matter
+			assertAll(() -> assertEquals(B.U, less.val()),
+					() -> assertEquals(new HashSet<>(Arrays.asList(x.get(3), y.get(3))), new HashSet<>(less.deps())));
+		});
+	}
+
+	@Test
+	public void testEqualValues() {
+		context.bitIdAllocator().runBound(() -> {
+			Value x = value("0101");
+			Value y = value("0101");
+			assertAll(() -> assertEquals(ZERO, Operator.LESS.compute(context, x, y).get(1).val()),
+					() -> assertEquals(ONE, Operator.LESS_EQUALS.compute(context, x, y).get(1).val()),
+					() -> assertEquals(ZERO, Operator.GREATER.compute(context, x, y).get(1).val()),
+					() -> assertEquals(ONE, Operator.GREATER_EQUALS.compute(context, x, y).get(1).val()));
+		});
+	}
+
+	@Test
+	public void testSubtractConstant() {
+		context.bitIdAllocator().runBound(() -> {
+			Value x = value("uu10");
+			Value result = Operator.SUBTRACT.compute(context, null, Arrays.asList(x, value("0001")));
+			assertAll(() -> assertEquals(ONE, result.get(1).val()),
+					() -> assertEquals(ZERO, result.get(2).val()),
+					() -> assertTrue(result.get(3).isUnknown()),
+					() -> assertTrue(result.get(4).isUnknown()));
+			Value same = Operator.SUBTRACT.compute(context, null, Arrays.asList(x, value("0000")));
+			assertAll(() -> assertEquals(ZERO, same.get(1).val()),
+					() -> assertEquals(ONE, same.get(2).val()));
+		});
+	}
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -142,6 +143,13 @@ public class Runner {
 	}
 	
 	public static void test(TestCase testCase, String handlerProp, boolean verbose) {
+		test(testCase, handlerProp, verbose, c -> {});
+	}
+	
+	/**
+	 * @param configure configures the context before the analysis
+	 */
+	public static void test(TestCase testCase, String handlerProp, boolean verbose, Consumer<Context> configure) {
 		Builder builder = new Builder()
 				.dumpDir("test_dump/" + testCase.klass.getCanonicalName() + "/" + testCase.mainMethod.getName() + "_" + handlerProp)
 				.methodInvocationHandler(handlerProp)
@@ -151,6 +159,7 @@ public class Runner {
 			builder.enableDumpAfterBuild();
 		}
 		Program program = builder.buildProgramOrDie();
+		configure.accept(program.context);
 		testCase.testContext(program.analyze());
 	}
 }
\ No newline at end of file
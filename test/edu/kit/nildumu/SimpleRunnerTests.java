@@ -26,6 +26,12 @@ public class SimpleRunnerTests {
 		Runner.test(testCase, handlerProp, false);
 	}
 	
+	@ParameterizedTest
+	@MethodSource("simpleTestsSupplier")
+	void testWithHashConsing(TestCase testCase, String handlerProp) {
+		Runner.test(testCase, handlerProp, false, c -> c.hashConsBits(true));
+	}
+	
 	public static Stream<Arguments> simpleTestsSupplier2(){
 		return Runner.testCases(SimpleTestBed2.class);
 	}
@@ -0,0 +1,123 @@
+package edu.kit.nildumu.interproc;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Builder;
+import edu.kit.nildumu.Context;
+import edu.kit.nildumu.Program;
+import edu.kit.nildumu.TestUtil;
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Sec;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.prog.Calls;
+import edu.kit.nildumu.prog.Simple;
+
+public class SummaryHandlerTest {
+
+	private Program program;
+
+	@BeforeEach
+	public void setUp() {
+		program = TestUtil.load(Simple.class);
+	}
+
+	private static Bit u(Bit... deps) {
+		return bl.create(B.U, ds.create(Arrays.asList(deps)));
+	}
+
+	/**
+	 * Both return bits depend on a single bit that depends on the parameter bits
+	 * via two or three other bits, the only min cut is the single bit
+	 */
+	private BitGraph graph(boolean threeBits) {
+		Bit p1 = u(), p2 = u();
+		Bit x = threeBits ? u(u(p1), u(p2), u(p2)) : u(u(p1), u(p2));
+		return new BitGraph(program.context, Collections.singletonList(new Value(p1, p2)), new Value(u(x), u(x)));
+	}
+
+	private static Bit cutBit(BitGraph graph) {
+		return graph.returnValue.get(1).deps().iterator().next();
+	}
+
+	@Test
+	public void testReusesTheMinCutOfAStructurallyEqualGraph() {
+		program.context.bitIdAllocator().runBound(() -> {
+			SummaryHandler handler = new SummaryHandler(null, SummaryHandler.Reduction.MINCUT, 1);
+			BitGraph first = graph(false);
+			BitGraph second = graph(false);
+			assertEquals(first.fingerprint(), second.fingerprint());
+			assertEquals(Collections.singleton(cutBit(first)), handler.minCutBits(program.main, first));
+			assertEquals(Collections.singleton(cutBit(second)), handler.minCutBits(program.main, second));
+			assertEquals(1, handler.minCutCacheHits());
+		});
+	}
+
+	@Test
+	public void testDoesNotReuseTheMinCutOfAnotherGraph() {
+		program.context.bitIdAllocator().runBound(() -> {
+			SummaryHandler handler = new SummaryHandler(null, SummaryHandler.Reduction.MINCUT, 1);
+			handler.minCutBits(program.main, graph(false));
+			BitGraph other = graph(true);
+			assertEquals(Collections.singleton(cutBit(other)), handler.minCutBits(program.main, other));
+			assertEquals(0, handler.minCutCacheHits());
+		});
+	}
+
+	@Test
+	public void testSeparatesReturnFromParameters() {
+		program.context.bitIdAllocator().runBound(() -> {
+			BitGraph graph = graph(false);
+			Bit x = cutBit(graph);
+			Bit[] between = x.deps().toArray(new Bit[0]);
+			assertAll(() -> assertTrue(graph.separatesReturnFromParameters(Collections.singleton(x))),
+					() -> assertTrue(graph.separatesReturnFromParameters(new HashSet<>(Arrays.asList(between)))),
+					() -> assertTrue(graph.separatesReturnFromParameters(graph.parameterBits)),
+					() -> assertFalse(graph.separatesReturnFromParameters(Collections.singleton(between[0]))),
+					() -> assertFalse(graph.separatesReturnFromParameters(Collections.emptySet())));
+		});
+	}
+
+	private static Context analyzeCalls(int parallelism) {
+		return new Builder().entry(Calls.class)
+				.methodInvocationHandler("handler=summary;reduction=mincut;parallelism=" + parallelism)
+				.buildProgramOrDie().analyze();
+	}
+
+	/**
+	 * Fingerprint of the summary of each method
+	 */
+	private static Map<String, Long> summaries(Context context) {
+		return ((SummaryHandler) context.methodInvocationHandler()).methodGraphs.entrySet().stream()
+				.collect(Collectors.toMap(e -> e.getKey().toBCString(), e -> e.getValue().fingerprint()));
+	}
+
+	private static Map<Sec<?>, Integer> leakages(Context context) {
+		return context.computeLeakage().entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().maxFlow));
+	}
+
+	@Test
+	public void testParallelSetupEqualsSequentialSetup() {
+		Context sequential = analyzeCalls(1);
+		for (int parallelism : new int[]{2, 4}) {
+			Context parallel = analyzeCalls(parallelism);
+			assertAll(() -> assertEquals(summaries(sequential), summaries(parallel), "Summaries"),
+					() -> assertEquals(leakages(sequential), leakages(parallel), "Leakages"));
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package edu.kit.nildumu.interproc;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Builder;
+import edu.kit.nildumu.Method;
+import edu.kit.nildumu.Program;
+import edu.kit.nildumu.prog.Calls;
+
+public class SummaryStoreTest {
+
+	private Path store;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		store = Files.createTempDirectory("summaries");
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(store)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	private static Program analyzeCalls(Path store) {
+		Program program = new Builder().entry(Calls.class)
+				.methodInvocationHandler("handler=summary;reduction=mincut;store=" + store)
+				.buildProgramOrDie();
+		program.analyze();
+		return program;
+	}
+
+	private static SummaryHandler handler(Program program) {
+		return (SummaryHandler) program.context.methodInvocationHandler();
+	}
+
+	private static Method method(Program program, String name) {
+		return program.entryToMethod.values().stream()
+				.filter(m -> m.method.getSignature().getMethodName().equals(name)).findFirst().get();
+	}
+
+	/**
+	 * {@code low} and {@code high} only differ in the constant that they use
+	 */
+	@Test
+	public void testInstructionsContainTheConstants() {
+		Program program = new Builder().entry(Calls.class).buildProgramOrDie();
+		assertNotEquals(SummaryStore.instructions(method(program, "low")), SummaryStore.instructions(method(program, "high")));
+	}
+
+	@Test
+	public void testStoredSummariesAreLoaded() {
+		Program first = analyzeCalls(store);
+		Program second = analyzeCalls(store);
+		assertAll(() -> assertTrue(handler(first).storedGraphs.isEmpty()),
+				() -> assertTrue(handler(second).storedGraphs.containsKey(method(second, "low"))),
+				() -> assertEquals(handler(first).methodGraphs.get(method(first, "low")).fingerprint(),
+						handler(second).methodGraphs.get(method(second, "low")).fingerprint()));
+	}
+
+	/**
+	 * A method whose key is not in the store (e.g. after changing a constant) is summarized again
+	 */
+	@Test
+	public void testChangedMethodIsSummarizedAgain() throws IOException {
+		Program first = analyzeCalls(store);
+		SummaryStore summaryStore = new SummaryStore(store, first.intWidth, SummaryHandler.Reduction.MINCUT, 2);
+		String key = summaryStore.keys(first.getMethodDominators()).get(method(first, "low"));
+		assertTrue(summaryStore.contains(key));
+		Files.delete(store.resolve(key + ".summary"));
+		Program second = analyzeCalls(store);
+		assertAll(() -> assertFalse(handler(second).storedGraphs.containsKey(method(second, "low")), "low is summarized again"),
+				() -> assertTrue(handler(second).storedGraphs.containsKey(method(second, "high")), "high is loaded"),
+				() -> assertTrue(summaryStore.contains(key), "low is stored again"));
+	}
+}
@@ -0,0 +1,119 @@
+package edu.kit.nildumu.interproc;
+
+import static edu.kit.nildumu.Lattices.bl;
+import static edu.kit.nildumu.Lattices.ds;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.kit.nildumu.Program;
+import edu.kit.nildumu.TestUtil;
+import edu.kit.nildumu.Lattices.B;
+import edu.kit.nildumu.Lattices.Bit;
+import edu.kit.nildumu.Lattices.Value;
+import edu.kit.nildumu.prog.Simple;
+
+public class SummaryTemplateTest {
+
+	private Program program;
+
+	@BeforeEach
+	public void setUp() {
+		program = TestUtil.load(Simple.class);
+	}
+
+	private static Bit u(Bit... deps) {
+		return bl.create(B.U, ds.create(Arrays.asList(deps)));
+	}
+
+	private static Value unknown(int width) {
+		Bit[] bits = new Bit[width];
+		for (int i = 0; i < width; i++) {
+			bits[i] = u();
+		}
+		return new Value(bits);
+	}
+
+	private static Set<Bit> deps(Bit bit) {
+		return new HashSet<>(bit.deps());
+	}
+
+	/**
+	 * Returns {@code u(m)}, a constant and the parameter bit {@code q}, with {@code m = u(p1, q)}
+	 */
+	private BitGraph simpleGraph(Value p, Value q) {
+		Bit m = u(p.get(1), q.get(1));
+		return new BitGraph(program.context, Arrays.asList(p, q), new Value(u(m), bl.create(B.ONE), q.get(1)));
+	}
+
+	@Test
+	public void testInstantiation() {
+		program.context.bitIdAllocator().runBound(() -> {
+			BitGraph graph = simpleGraph(unknown(2), unknown(1));
+			Value a = unknown(2), b = unknown(1);
+			Value result = graph.applyToArgs(Arrays.asList(a, b));
+			Set<Bit> mDeps = deps(result.get(1).deps().iterator().next());
+			assertAll(() -> assertEquals(3, graph.template().size(), "m, the return bit and the constant"),
+					() -> assertEquals(new HashSet<>(Arrays.asList(a.get(1), b.get(1))), mDeps),
+					() -> assertEquals(B.ONE, result.get(2).val()),
+					() -> assertSame(b.get(1), result.get(3), "Parameter bits are returned as the argument bits"));
+		});
+	}
+
+	@Test
+	public void testSharingWithTheSameArguments() {
+		program.context.bitIdAllocator().runBound(() -> {
+			BitGraph graph = simpleGraph(unknown(2), unknown(1));
+			List<Value> arguments = Arrays.asList(unknown(2), unknown(1));
+			Value first = graph.applyToArgs(arguments);
+			Value second = graph.applyToArgs(arguments);
+			Value other = graph.applyToArgs(Arrays.asList(unknown(2), arguments.get(1)));
+			assertAll(() -> assertNotSame(first.get(1), second.get(1), "Return bits are never shared"),
+					() -> assertEquals(deps(first.get(1)), deps(second.get(1)), "Internal bits are shared"),
+					() -> assertTrue(Collections.disjoint(deps(first.get(1)), deps(other.get(1))),
+							"Internal bits are not shared with other arguments"));
+		});
+	}
+
+	/**
+	 * Cycle of internal bits {@code c1 ↔ c2} that the return bit depends on
+	 * and a cycle between the return bit and an internal bit {@code d}
+	 */
+	@Test
+	public void testBackEdges() {
+		program.context.bitIdAllocator().runBound(() -> {
+			Value p = unknown(2);
+			Bit c1 = u(p.get(1));
+			Bit c2 = u(c1, p.get(2));
+			c1.addDependency(c2);
+			Bit d = u(p.get(1));
+			Bit r = u(c2, d);
+			d.addDependency(r);
+			BitGraph graph = new BitGraph(program.context, Collections.singletonList(p), new Value(r));
+			Value a = unknown(2);
+			Value first = graph.applyToArgs(Collections.singletonList(a));
+			Value second = graph.applyToArgs(Collections.singletonList(a));
+			Bit r1 = first.get(1);
+			Bit c21 = r1.deps().stream().filter(b -> b.deps().contains(a.get(2))).findFirst().get();
+			Bit c11 = c21.deps().stream().filter(b -> b != a.get(2)).findFirst().get();
+			Bit d1 = r1.deps().stream().filter(b -> b != c21).findFirst().get();
+			Bit d2 = second.get(1).deps().stream().filter(b -> b != c21).findFirst().get();
+			assertAll(() -> assertEquals(4, graph.template().size()),
+					() -> assertEquals(new HashSet<>(Arrays.asList(a.get(1), c21)), deps(c11), "Back edge c1 → c2"),
+					() -> assertEquals(new HashSet<>(Arrays.asList(a.get(1), r1)), deps(d1), "Back edge d → r"),
+					() -> assertTrue(second.get(1).deps().contains(c21), "The cycle c1 ↔ c2 is shared"),
+					() -> assertNotSame(d1, d2, "d depends on the return bit and is not shared"));
+		});
+	}
+}
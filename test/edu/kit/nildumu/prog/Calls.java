@@ -0,0 +1,46 @@
+package edu.kit.nildumu.prog;
+
+import edu.kit.joana.ui.annotations.Level;
+import edu.kit.joana.ui.annotations.Source;
+import edu.kit.nildumu.ui.Config;
+import edu.kit.nildumu.ui.EntryPoint;
+
+import static edu.kit.nildumu.ui.CodeUI.*;
+
+/**
+ * Call graph with independent methods and recursion, the summaries of the independent
+ * parts can be computed in parallel
+ */
+public class Calls {
+	
+	public static void main(String[] args) {
+		program(1, 1);
+	}
+	
+	@EntryPoint
+	@Config(intWidth=4)
+	public static void program(@Source(level=Level.HIGH) int h, @Source(level=Level.HIGH) int h2) {
+		output(combine(h, h2), "l");
+		output(fib(h2), "l");
+	}
+	
+	public static int combine(int a, int b) {
+		return low(a) | high(b);
+	}
+	
+	public static int low(int a) {
+		return a & 3;
+	}
+	
+	public static int high(int a) {
+		return a & 12;
+	}
+	
+	public static int fib(int a) {
+		int r = 1;
+		if (a > 1) {
+			r = fib(a - 1) + fib(a - 2);
+		}
+		return r;
+	}
+}
@@ -0,0 +1,33 @@
+package edu.kit.nildumu.prog;
+
+import edu.kit.joana.ui.annotations.Level;
+import edu.kit.joana.ui.annotations.Source;
+import edu.kit.nildumu.ui.EntryPoint;
+
+import static edu.kit.nildumu.ui.CodeUI.*;
+
+/**
+ * Nested loops, the inner loop is evaluated again with unchanged arguments
+ * in each iteration of the outer loop
+ */
+public class Loop {
+	
+	public static void main(String[] args) {
+		program(1, 1);
+	}
+	
+	@EntryPoint
+	public static void program(@Source(level=Level.HIGH) int h, @Source(level=Level.HIGH) int h2) {
+		int o = 0;
+		int i = 0;
+		while (i < h) {
+			int j = 0;
+			while (j < 3) {
+				o = o ^ (h2 & j);
+				j++;
+			}
+			i++;
+		}
+		output(o, "l");
+	}
+}